@@ -1,5 +1,5 @@
 package ru.yandex.api;
 
 public enum Endpoint {
-    GET_BY_ID, GET_ALL, GET_SUBTASKS, CREATE, REMOVE, UNKNOWN
+    GET_BY_ID, GET_ALL, GET_SUBTASKS, CREATE, CREATE_BULK, REMOVE, UNKNOWN
 }
@@ -5,6 +5,7 @@ import com.sun.net.httpserver.HttpExchange;
 import java.io.IOException;
 import ru.yandex.exceptions.TaskNotFoundException;
 import ru.yandex.model.Epic;
+import ru.yandex.model.TaskType;
 import ru.yandex.service.TaskManager;
 
 public class EpicHandler extends RequestHandler {
@@ -17,14 +18,17 @@ public class EpicHandler extends RequestHandler {
     public void handle(HttpExchange exchange) throws IOException {
         switch (RequestParser.getEndpoint(exchange)) {
             case GET_ALL -> {
-                String body = gson.toJson(taskManager.getAllEpics());
-                sendText(exchange, body, 200);
+                try {
+                    sendList(exchange, taskManager.getVersion(TaskType.EPIC),
+                        taskManager::forEachEpic, taskManager::getEpicsPage);
+                } catch (Exception e) {
+                    sendInternalError(exchange);
+                }
             }
             case GET_BY_ID -> {
                 int id = Integer.parseInt(exchange.getRequestURI().getPath().split("/")[2]);
                 try {
-                    String body = gson.toJson(taskManager.getEpic(id));
-                    sendText(exchange, body, 200);
+                    sendJson(exchange, taskManager.getEpic(id), 200);
                 } catch (TaskNotFoundException e) {
                     sendNotFound(exchange);
                 } catch (Exception e) {
@@ -34,8 +38,7 @@ public class EpicHandler extends RequestHandler {
             case GET_SUBTASKS -> {
                 try {
                     int id = Integer.parseInt(exchange.getRequestURI().getPath().split("/")[2]);
-                    String body = gson.toJson(taskManager.getSubtasks(id));
-                    sendText(exchange, body, 200);
+                    sendJson(exchange, taskManager.getSubtasks(id), 200);
                 } catch (Exception e) {
                     sendInternalError(exchange);
                 }
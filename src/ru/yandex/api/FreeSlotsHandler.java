@@ -0,0 +1,48 @@
+package ru.yandex.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import ru.yandex.model.TimeSlot;
+import ru.yandex.service.TaskManager;
+
+// GET /free-slots?duration=PT1H&from=...&to=...[&limit=N] - свободные промежутки расписания,
+// в которые можно добавить задачу без пересечений; по умолчанию возвращается самый ранний
+public class FreeSlotsHandler extends RequestHandler {
+
+    FreeSlotsHandler(TaskManager taskManager) {
+        super(taskManager);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        switch (RequestParser.getEndpoint(exchange)) {
+            case GET_ALL -> {
+                Map<String, String> query = RequestParser.getQueryParameters(exchange);
+                if (!query.containsKey("duration") || !query.containsKey("from")
+                    || !query.containsKey("to")) {
+                    sendBadRequest(exchange);
+                    return;
+                }
+                List<TimeSlot> slots;
+                try {
+                    Duration duration = Duration.parse(query.get("duration"));
+                    LocalDateTime from = LocalDateTime.parse(query.get("from"));
+                    LocalDateTime to = LocalDateTime.parse(query.get("to"));
+                    int limit = query.containsKey("limit")
+                        ? Integer.parseInt(query.get("limit")) : 1;
+                    slots = taskManager.findFreeSlots(duration, from, to, limit);
+                } catch (DateTimeException | IllegalArgumentException e) {
+                    sendBadRequest(exchange);
+                    return;
+                }
+                sendJson(exchange, slots, 200);
+            }
+            default -> sendBadRequest(exchange);
+        }
+    }
+}
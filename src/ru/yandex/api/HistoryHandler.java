@@ -14,8 +14,7 @@ public class HistoryHandler extends RequestHandler {
     public void handle(HttpExchange exchange) throws IOException {
         switch (RequestParser.getEndpoint(exchange)) {
             case GET_ALL -> {
-                String body = gson.toJson(taskManager.getHistory());
-                sendText(exchange, body, 200);
+                sendJson(exchange, taskManager.getHistory(), 200);
             }
             case UNKNOWN -> sendBadRequest(exchange);
         }
@@ -1,38 +1,135 @@
 package ru.yandex.api;
 
+import com.sun.net.httpserver.HttpContext;
 import com.sun.net.httpserver.HttpServer;
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import ru.yandex.service.Managers;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import ru.yandex.exceptions.ManagerSaveException;
+import ru.yandex.service.ConcurrentTaskManager;
+import ru.yandex.service.SessionHistoryManager;
 import ru.yandex.service.TaskManager;
 
 public class HttpTaskServer {
 
-    private static final int PORT = 8080;
+    private static final int DEFAULT_PORT = 8080;
+    // 0 - размер очереди входящих соединений по умолчанию для системы
+    private static final int DEFAULT_BACKLOG = 0;
+    private static final int SESSION_HISTORY_CAPACITY = 100;
+    private static final Duration SESSION_IDLE_TIMEOUT = Duration.ofMinutes(30);
+    // сколько секунд main при завершении процесса ждёт уже принятые запросы
+    private static final int SHUTDOWN_DELAY = 1;
     private final HttpServer taskServer;
+    private final ExecutorService executor;
+    // исполнитель, созданный самим сервером, останавливается вместе с ним
+    private final boolean ownsExecutor;
+    private final List<HttpContext> contexts = new ArrayList<>();
+    // ресурсы (журналы, истории), закрываемые после остановки сервера
+    private final List<AutoCloseable> resources = new ArrayList<>();
 
+    // потокобезопасный менеджер (например, ConcurrentTaskManager) обслуживается в виртуальных
+    // потоках, каждый запрос в своём; запросы к остальным менеджерам выполняются по очереди в
+    // одном потоке
     public HttpTaskServer(TaskManager taskManager) throws IOException {
+        this(taskManager, new InetSocketAddress(DEFAULT_PORT), DEFAULT_BACKLOG);
+    }
+
+    public HttpTaskServer(TaskManager taskManager, InetSocketAddress address, int backlog)
+        throws IOException {
+        this(taskManager, address, backlog, taskManager.isThreadSafe()
+            ? Executors.newVirtualThreadPerTaskExecutor() : Executors.newSingleThreadExecutor(),
+            true);
+    }
+
+    // executor может быть, например, ограниченным пулом платформенных потоков; его остановкой
+    // управляет вызывающий. Многопоточный executor допустим только для потокобезопасного менеджера
+    public HttpTaskServer(TaskManager taskManager, InetSocketAddress address, int backlog,
+        ExecutorService executor) throws IOException {
+        this(taskManager, address, backlog, executor, false);
+    }
+
+    private HttpTaskServer(TaskManager taskManager, InetSocketAddress address, int backlog,
+        ExecutorService executor, boolean ownsExecutor) throws IOException {
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
         taskServer = HttpServer.create();
-        taskServer.bind(new InetSocketAddress(PORT), 0);
-        taskServer.createContext("/tasks", new TaskHandler(taskManager));
-        taskServer.createContext("/epics", new EpicHandler(taskManager));
-        taskServer.createContext("/subtasks", new SubtaskHandler(taskManager));
-        taskServer.createContext("/history", new HistoryHandler(taskManager));
-        taskServer.createContext("/prioritized", new PrioritizedHandler(taskManager));
+        taskServer.bind(address, backlog);
+        taskServer.setExecutor(executor);
+        contexts.add(taskServer.createContext("/tasks", new TaskHandler(taskManager)));
+        contexts.add(taskServer.createContext("/epics", new EpicHandler(taskManager)));
+        contexts.add(taskServer.createContext("/subtasks", new SubtaskHandler(taskManager)));
+        contexts.add(taskServer.createContext("/history", new HistoryHandler(taskManager)));
+        contexts.add(taskServer.createContext("/prioritized",
+            new PrioritizedHandler(taskManager)));
+        contexts.add(taskServer.createContext("/free-slots", new FreeSlotsHandler(taskManager)));
     }
 
+    // запросы выполняются в сессии клиента; sessions должен быть историей менеджера этого сервера.
+    // Вызывается до start
+    public void useSessions(SessionHistoryManager sessions) {
+        SessionFilter filter = new SessionFilter(sessions);
+        contexts.forEach(context -> context.getFilters().add(filter));
+    }
+
+    // resource закрывается в stop после завершения принятых запросов, в порядке, обратном
+    // регистрации; так отложенные записи журнала (DurabilityPolicy.ASYNC) не теряются при остановке
+    public void closeOnStop(AutoCloseable resource) {
+        resources.add(resource);
+    }
+
+    // аргументы: [порт] [адрес] [размер очереди соединений]
     public static void main(String[] args) throws IOException {
-        TaskManager tm = Managers.getDefault();
-        HttpTaskServer hts = new HttpTaskServer(tm);
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        InetSocketAddress address = args.length > 1 ? new InetSocketAddress(args[1], port)
+            : new InetSocketAddress(port);
+        int backlog = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_BACKLOG;
+        SessionHistoryManager sessions = new SessionHistoryManager(SESSION_HISTORY_CAPACITY,
+            SESSION_IDLE_TIMEOUT).start();
+        HttpTaskServer hts = new HttpTaskServer(new ConcurrentTaskManager(sessions), address,
+            backlog);
+        hts.useSessions(sessions);
+        hts.closeOnStop(sessions);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> hts.stop(SHUTDOWN_DELAY),
+            "task-server-shutdown"));
         hts.start();
     }
 
+    public InetSocketAddress getAddress() {
+        return taskServer.getAddress();
+    }
+
     public void start() {
         taskServer.start();
     }
 
+    // delay - сколько секунд ждать завершения уже принятых запросов
     public void stop(int delay) {
         taskServer.stop(delay);
+        if (ownsExecutor) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(delay, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // ошибка одного ресурса не мешает закрыть остальные
+        boolean failed = false;
+        for (int i = resources.size() - 1; i >= 0; i--) {
+            try {
+                resources.get(i).close();
+            } catch (Exception e) {
+                failed = true;
+            }
+        }
+        resources.clear();
+        if (failed) {
+            throw new ManagerSaveException("Ошибка при закрытии ресурсов сервера.");
+        }
     }
 }
-
@@ -2,6 +2,12 @@ package ru.yandex.api;
 
 import com.sun.net.httpserver.HttpExchange;
 import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import ru.yandex.model.Task;
+import ru.yandex.model.TaskType;
 import ru.yandex.service.TaskManager;
 
 public class PrioritizedHandler extends RequestHandler {
@@ -14,10 +20,37 @@ public class PrioritizedHandler extends RequestHandler {
     public void handle(HttpExchange exchange) throws IOException {
         switch (RequestParser.getEndpoint(exchange)) {
             case GET_ALL -> {
-                String body = gson.toJson(taskManager.getPrioritizedTasks());
-                sendText(exchange, body, 200);
+                Map<String, String> query = RequestParser.getQueryParameters(exchange);
+                try {
+                    if (query.containsKey("from") || query.containsKey("to")) {
+                        sendRange(exchange, query.get("from"), query.get("to"));
+                        return;
+                    }
+                    // сумма версий растёт при любом изменении задач или подзадач
+                    long version = taskManager.getVersion(TaskType.TASK)
+                        + taskManager.getVersion(TaskType.SUBTASK);
+                    sendList(exchange, version,
+                        action -> taskManager.getPrioritizedTasks().forEach(action),
+                        taskManager::getPrioritizedTasksPage);
+                } catch (Exception e) {
+                    sendInternalError(exchange);
+                }
             }
             case UNKNOWN -> sendBadRequest(exchange);
         }
     }
+
+    // ?from=&to= в формате ISO-8601 (например, 2024-05-01T10:00); любую границу можно опустить
+    private void sendRange(HttpExchange exchange, String from, String to) throws IOException {
+        List<Task> range;
+        try {
+            LocalDateTime start = from == null ? null : LocalDateTime.parse(from);
+            LocalDateTime end = to == null ? null : LocalDateTime.parse(to);
+            range = taskManager.getTasksStartingBetween(start, end);
+        } catch (DateTimeException | IllegalArgumentException e) {
+            sendBadRequest(exchange);
+            return;
+        }
+        sendJson(exchange, range, 200);
+    }
 }
@@ -2,39 +2,170 @@ package ru.yandex.api;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import ru.yandex.exceptions.BulkInsertException;
 import ru.yandex.service.TaskManager;
-import ru.yandex.util.DurationTypeAdapter;
 import ru.yandex.util.LocalDateTimeAdapter;
+import ru.yandex.util.Page;
+import ru.yandex.util.TaskTypeAdapterFactory;
 
 abstract class RequestHandler implements HttpHandler {
 
     protected static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
+    // списки длиннее этого размера передаются потоком без кэширования
+    private static final int MAX_CACHED_BYTES = 4 * 1024 * 1024;
     protected final TaskManager taskManager;
     protected final Gson gson;
+    // префикс ETag уникален для экземпляра обработчика, чтобы метки, выданные другим сервером или
+    // до перезапуска, не совпали с текущими при тех же номерах версий
+    private final String etagPrefix = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private volatile CachedResponse cachedList;
 
     RequestHandler(TaskManager taskManager) {
         this.taskManager = taskManager;
-        this.gson = new GsonBuilder().registerTypeAdapter(Duration.class, new DurationTypeAdapter())
-            .registerTypeAdapter(
-                LocalDateTime.class, new LocalDateTimeAdapter()).create();
+        this.gson = new GsonBuilder().registerTypeAdapterFactory(new TaskTypeAdapterFactory())
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter().nullSafe())
+            .create();
     }
 
     protected void sendText(HttpExchange exchange, String body, int responseCode)
         throws IOException {
-        byte[] response = body.getBytes();
+        byte[] response = body.getBytes(DEFAULT_CHARSET);
         exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
         exchange.sendResponseHeaders(responseCode, response.length);
         exchange.getResponseBody().write(response);
         exchange.close();
     }
 
+    // тело сериализуется прямо в поток ответа с передачей частями (chunked), без промежуточной
+    // строки и массива байт. Если клиент отключился во время передачи, ответ просто закрывается:
+    // заголовки уже отправлены, и сообщить об ошибке кодом ответа нельзя
+    protected void sendJson(HttpExchange exchange, Object body, int responseCode)
+        throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+        exchange.sendResponseHeaders(responseCode, 0);
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(
+            new OutputStreamWriter(exchange.getResponseBody(), DEFAULT_CHARSET)))) {
+            gson.toJson(body, body.getClass(), writer);
+        } catch (IOException | JsonIOException e) {
+            // ответ уже начат, остаётся только закрыть обмен
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // ответ со списком кэшируется в сериализованном виде для версии коллекции; версия должна быть
+    // прочитана до получения данных, тогда закэшированные данные не старше своей версии. При
+    // промахе кэша элементы из forEach пишутся через JsonWriter прямо в поток ответа, а копия
+    // байт попадает в кэш, только если список не длиннее MAX_CACHED_BYTES. Незавершённый из-за
+    // ошибки ответ не кэшируется; заголовки к этому моменту отправлены, и обмен просто закрывается.
+    // Потокобезопасный менеджер держит блокировку чтения, пока список пишется в сокет
+    protected <T> void sendCachedJson(HttpExchange exchange, long version,
+        Consumer<Consumer<T>> forEach) throws IOException {
+        String etag = "\"" + etagPrefix + "-" + version + "\"";
+        exchange.getResponseHeaders().add("ETag", etag);
+        if (matchesETag(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+        CachedResponse cached = cachedList;
+        if (cached != null && cached.version == version) {
+            exchange.sendResponseHeaders(200, cached.body.length);
+            exchange.getResponseBody().write(cached.body);
+            exchange.close();
+            return;
+        }
+        exchange.sendResponseHeaders(200, 0);
+        CapturingStream body = new CapturingStream(exchange.getResponseBody(), MAX_CACHED_BYTES);
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(
+            new OutputStreamWriter(body, DEFAULT_CHARSET)))) {
+            writer.beginArray();
+            forEach.accept(item -> gson.toJson(item, item.getClass(), writer));
+            writer.endArray();
+        } catch (IOException | RuntimeException e) {
+            exchange.close();
+            return;
+        }
+        byte[] captured = body.captured();
+        if (captured != null) {
+            cachedList = new CachedResponse(version, captured);
+        }
+        exchange.close();
+    }
+
+    // с параметром limit (и необязательным cursor) возвращается одна страница
+    // {"items": [...], "nextCursor": "..."}, без него - весь список из кэша. Некорректные limit
+    // и cursor дают 400; остальные исключения менеджера обработчик превращает в 500
+    protected <T> void sendList(HttpExchange exchange, long version,
+        Consumer<Consumer<T>> forEach,
+        BiFunction<Integer, String, ? extends Page<?>> page) throws IOException {
+        Map<String, String> query = RequestParser.getQueryParameters(exchange);
+        if (!query.containsKey("limit")) {
+            sendCachedJson(exchange, version, forEach);
+            return;
+        }
+        Page<?> result;
+        try {
+            result = page.apply(Integer.parseInt(query.get("limit")), query.get("cursor"));
+        } catch (IllegalArgumentException e) {
+            sendBadRequest(exchange);
+            return;
+        }
+        sendJson(exchange, result, 200);
+    }
+
+    private static boolean matchesETag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        return Arrays.stream(ifNoneMatch.split(",")).map(String::trim)
+            .anyMatch(tag -> tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag));
+    }
+
+    // тело запроса пакетного добавления - JSON-массив элементов указанного типа
+    protected <T> List<T> readBatch(HttpExchange exchange, Class<T> type) throws IOException {
+        @SuppressWarnings("unchecked")
+        List<T> batch = (List<T>) gson.fromJson(
+            new String(exchange.getRequestBody().readAllBytes(), DEFAULT_CHARSET),
+            TypeToken.getParameterized(List.class, type).getType());
+        if (batch == null || batch.contains(null)) {
+            throw new JsonSyntaxException("Пакет должен быть массивом элементов.");
+        }
+        return batch;
+    }
+
+    // 406 с индексом первого конфликтующего элемента пакета: {"index": 3, "message": "..."}
+    protected void sendBulkConflict(HttpExchange exchange, BulkInsertException e)
+        throws IOException {
+        JsonObject body = new JsonObject();
+        body.addProperty("index", e.getIndex());
+        body.addProperty("message", e.getMessage());
+        sendText(exchange, body.toString(), 406);
+    }
+
     protected void sendBadRequest(HttpExchange exchange) throws IOException {
         exchange.sendResponseHeaders(400, 0);
         exchange.close();
@@ -54,4 +185,55 @@ abstract class RequestHandler implements HttpHandler {
         exchange.sendResponseHeaders(500, 0);
         exchange.close();
     }
+
+    // передаёт байты дальше и копирует их, пока копия не длиннее limit
+    private static final class CapturingStream extends FilterOutputStream {
+
+        private final int limit;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        private CapturingStream(OutputStream out, int limit) {
+            super(out);
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            capture(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            capture(b, off, len);
+        }
+
+        // null, если ответ оказался длиннее limit
+        private byte[] captured() {
+            return copy == null ? null : copy.toByteArray();
+        }
+
+        private void capture(byte[] b, int off, int len) {
+            if (copy == null) {
+                return;
+            }
+            if (copy.size() + len > limit) {
+                copy = null;
+                return;
+            }
+            copy.write(b, off, len);
+        }
+    }
+
+    private static final class CachedResponse {
+
+        private final long version;
+        private final byte[] body;
+
+        private CachedResponse(long version, byte[] body) {
+            this.version = version;
+            this.body = body;
+        }
+    }
 }
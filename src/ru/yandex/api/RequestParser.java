@@ -1,6 +1,7 @@
 package ru.yandex.api;
 
 import static ru.yandex.api.Endpoint.CREATE;
+import static ru.yandex.api.Endpoint.CREATE_BULK;
 import static ru.yandex.api.Endpoint.GET_ALL;
 import static ru.yandex.api.Endpoint.GET_BY_ID;
 import static ru.yandex.api.Endpoint.GET_SUBTASKS;
@@ -8,6 +9,10 @@ import static ru.yandex.api.Endpoint.REMOVE;
 import static ru.yandex.api.Endpoint.UNKNOWN;
 
 import com.sun.net.httpserver.HttpExchange;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
 
 public class RequestParser {
 
@@ -33,6 +38,9 @@ public class RequestParser {
                 }
             }
             case "POST" -> {
+                if (path.length == 3 && path[2].equals("bulk")) {
+                    return CREATE_BULK;
+                }
                 return CREATE;
             }
             case "DELETE" -> {
@@ -48,4 +56,21 @@ public class RequestParser {
             }
         }
     }
+
+    // параметры строки запроса; при повторе параметра берётся последнее значение
+    public static Map<String, String> getQueryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
 }
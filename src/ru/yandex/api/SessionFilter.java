@@ -0,0 +1,69 @@
+package ru.yandex.api;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.util.List;
+import ru.yandex.service.SessionHistoryManager;
+
+// определяет сессию клиента по заголовку X-Session-Id или по cookie session и выполняет запрос
+// в этой сессии. Запросы без сессии работают с общей историей
+public class SessionFilter extends Filter {
+
+    static final String SESSION_HEADER = "X-Session-Id";
+    static final String SESSION_COOKIE = "session";
+    // длина id ограничена, чтобы клиент не мог занять память произвольно длинными ключами
+    private static final int MAX_SESSION_ID_LENGTH = 128;
+    private final SessionHistoryManager sessions;
+
+    SessionFilter(SessionHistoryManager sessions) {
+        this.sessions = sessions;
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        String sessionId = getSessionId(exchange);
+        if (sessionId == null) {
+            chain.doFilter(exchange);
+            return;
+        }
+        sessions.enter(sessionId);
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            sessions.leave();
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Определение сессии клиента";
+    }
+
+    static String getSessionId(HttpExchange exchange) {
+        String sessionId = exchange.getRequestHeaders().getFirst(SESSION_HEADER);
+        if (sessionId == null) {
+            sessionId = getCookie(exchange.getRequestHeaders().get("Cookie"));
+        }
+        if (sessionId == null || sessionId.isBlank()
+            || sessionId.length() > MAX_SESSION_ID_LENGTH) {
+            return null;
+        }
+        return sessionId.trim();
+    }
+
+    private static String getCookie(List<String> headers) {
+        if (headers == null) {
+            return null;
+        }
+        for (String header : headers) {
+            for (String cookie : header.split(";")) {
+                int eq = cookie.indexOf('=');
+                if (eq > 0 && cookie.substring(0, eq).trim().equals(SESSION_COOKIE)) {
+                    return cookie.substring(eq + 1).trim();
+                }
+            }
+        }
+        return null;
+    }
+}
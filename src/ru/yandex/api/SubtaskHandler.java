@@ -3,9 +3,12 @@ package ru.yandex.api;
 import com.google.gson.JsonSyntaxException;
 import com.sun.net.httpserver.HttpExchange;
 import java.io.IOException;
+import java.util.List;
+import ru.yandex.exceptions.BulkInsertException;
 import ru.yandex.exceptions.TaskNotFoundException;
 import ru.yandex.exceptions.TaskOverlapException;
 import ru.yandex.model.Subtask;
+import ru.yandex.model.TaskType;
 import ru.yandex.service.TaskManager;
 
 public class SubtaskHandler extends RequestHandler {
@@ -18,14 +21,17 @@ public class SubtaskHandler extends RequestHandler {
     public void handle(HttpExchange exchange) throws IOException {
         switch (RequestParser.getEndpoint(exchange)) {
             case GET_ALL -> {
-                String body = gson.toJson(taskManager.getAllSubtasks());
-                sendText(exchange, body, 200);
+                try {
+                    sendList(exchange, taskManager.getVersion(TaskType.SUBTASK),
+                        taskManager::forEachSubtask, taskManager::getSubtasksPage);
+                } catch (Exception e) {
+                    sendInternalError(exchange);
+                }
             }
             case GET_BY_ID -> {
                 int id = Integer.parseInt(exchange.getRequestURI().getPath().split("/")[2]);
                 try {
-                    String body = gson.toJson(taskManager.getSubtask(id));
-                    sendText(exchange, body, 200);
+                    sendJson(exchange, taskManager.getSubtask(id), 200);
                 } catch (TaskNotFoundException e) {
                     sendNotFound(exchange);
                 } catch (Exception e) {
@@ -53,6 +59,20 @@ public class SubtaskHandler extends RequestHandler {
                     sendInternalError(exchange);
                 }
             }
+            case CREATE_BULK -> {
+                try {
+                    List<Subtask> batch = readBatch(exchange, Subtask.class);
+                    sendJson(exchange, taskManager.addSubtasks(batch), 201);
+                } catch (JsonSyntaxException e) {
+                    sendBadRequest(exchange);
+                } catch (BulkInsertException e) {
+                    sendBulkConflict(exchange, e);
+                } catch (TaskNotFoundException e) {
+                    sendNotFound(exchange);
+                } catch (Exception e) {
+                    sendInternalError(exchange);
+                }
+            }
             case REMOVE -> {
                 try {
                     int id = Integer.parseInt(exchange.getRequestURI().getPath().split("/")[2]);
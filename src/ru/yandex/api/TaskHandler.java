@@ -3,9 +3,11 @@ package ru.yandex.api;
 import com.google.gson.JsonSyntaxException;
 import com.sun.net.httpserver.HttpExchange;
 import java.io.IOException;
+import ru.yandex.exceptions.BulkInsertException;
 import ru.yandex.exceptions.TaskNotFoundException;
 import ru.yandex.exceptions.TaskOverlapException;
 import ru.yandex.model.Task;
+import ru.yandex.model.TaskType;
 import ru.yandex.service.TaskManager;
 
 public class TaskHandler extends RequestHandler {
@@ -19,8 +21,8 @@ public class TaskHandler extends RequestHandler {
         switch (RequestParser.getEndpoint(exchange)) {
             case GET_ALL -> {
                 try {
-                    String body = gson.toJson(taskManager.getAllTasks());
-                    sendText(exchange, body, 200);
+                    sendList(exchange, taskManager.getVersion(TaskType.TASK),
+                        taskManager::forEachTask, taskManager::getTasksPage);
                 } catch (Exception e) {
                     sendInternalError(exchange);
                 }
@@ -28,8 +30,7 @@ public class TaskHandler extends RequestHandler {
             case GET_BY_ID -> {
                 int id = Integer.parseInt(exchange.getRequestURI().getPath().split("/")[2]);
                 try {
-                    String body = gson.toJson(taskManager.getTask(id));
-                    sendText(exchange, body, 200);
+                    sendJson(exchange, taskManager.getTask(id), 200);
                 } catch (TaskNotFoundException e) {
                     sendNotFound(exchange);
                 } catch (Exception e) {
@@ -55,6 +56,17 @@ public class TaskHandler extends RequestHandler {
                     sendInternalError(exchange);
                 }
             }
+            case CREATE_BULK -> {
+                try {
+                    sendJson(exchange, taskManager.addTasks(readBatch(exchange, Task.class)), 201);
+                } catch (JsonSyntaxException e) {
+                    sendBadRequest(exchange);
+                } catch (BulkInsertException e) {
+                    sendBulkConflict(exchange, e);
+                } catch (Exception e) {
+                    sendInternalError(exchange);
+                }
+            }
             case REMOVE -> {
                 try {
                     int id = Integer.parseInt(exchange.getRequestURI().getPath().split("/")[2]);
@@ -0,0 +1,16 @@
+package ru.yandex.exceptions;
+
+// пакет не добавлен из-за пересечения по срокам; index - позиция первого конфликтующего элемента
+public class BulkInsertException extends TaskOverlapException {
+
+    private final int index;
+
+    public BulkInsertException(String message, int index) {
+        super(message);
+        this.index = index;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+}
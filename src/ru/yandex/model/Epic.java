@@ -2,20 +2,27 @@ package ru.yandex.model;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
+import ru.yandex.util.IntMap;
 
 public class Epic extends Task {
 
-    private HashMap<Integer, Subtask> subtasks = new HashMap<>();
+    // хранятся снимки подзадач: агрегаты при замене или удалении подзадачи исправляются по тем
+    // значениям, которые были учтены, даже если сам объект подзадачи изменили на месте
+    private IntMap<Subtask> subtasks = new IntMap<>();
     private LocalDateTime endTime;
-    private boolean isUpdatedStatus, isUpdatedTimeAndDuration;
+    // агрегаты поддерживаются при каждом изменении подзадач: число подзадач в каждом статусе и
+    // число подзадач с каждым временем начала и конца. Изменение стоит O(log n), а статус, время и
+    // длительность эпика читаются из полей за O(1)
+    private int[] statusCounts = new int[TaskStatus.values().length];
+    private TreeMap<LocalDateTime, Integer> startTimes = new TreeMap<>();
+    private TreeMap<LocalDateTime, Integer> endTimes = new TreeMap<>();
 
     public Epic(String name, String description, int id) {
         super(name, description, id, TaskStatus.NEW, Duration.ZERO, LocalDateTime.MIN);
         this.endTime = LocalDateTime.MAX;
-        isUpdatedStatus = true;
-        isUpdatedTimeAndDuration = true;
     }
 
     public Epic(String name, String description) {
@@ -26,110 +33,92 @@ public class Epic extends Task {
     public String toString() {
         return super.toString().replace("Задача", "Эпик") + "; Подзадачи: " + (subtasks.isEmpty()
             ? "нет" :
-            subtasks.keySet().stream().map(st -> "#" + String.format("%08d", st))
+            subtasks.keys().mapToObj(st -> "#" + String.format("%08d", st))
                 .collect(Collectors.joining(", ")));
     }
 
-    @Override
-    public TaskStatus getStatus() {
-        if (!isUpdatedStatus) {
-            updateStatus();
-        }
-        return super.getStatus();
-    }
-
-    public HashMap<Integer, Subtask> getSubtasks() {
+    public IntMap<Subtask> getSubtasks() {
         return subtasks;
     }
 
     public boolean addSubtask(Subtask subtask) {
+        beforeChange();
         if (!subtasks.containsKey(subtask.getId())) {
-            subtasks.put(subtask.getId(), subtask);
-            isUpdatedStatus = false;
-            isUpdatedTimeAndDuration = false;
+            Subtask member = (Subtask) subtask.snapshot();
+            subtasks.put(member.getId(), member);
+            include(member);
             return true;
         }
         return false;
     }
 
     public boolean updateSubtask(Subtask subtask) {
+        beforeChange();
         if (!subtasks.containsKey(subtask.getId())) {
             return false;
         }
-        subtasks.put(subtask.getId(), subtask);
-        isUpdatedStatus = false;
-        isUpdatedTimeAndDuration = false;
+        Subtask member = (Subtask) subtask.snapshot();
+        exclude(subtasks.put(member.getId(), member));
+        include(member);
         return true;
     }
 
     public boolean removeSubtask(Subtask subtask) {
-        boolean result = subtasks.remove(subtask.getId()) != null;
-        if (result) {
-            isUpdatedStatus = false;
-            isUpdatedTimeAndDuration = false;
+        beforeChange();
+        Subtask removed = subtasks.remove(subtask.getId());
+        if (removed != null) {
+            exclude(removed);
         }
-        return result;
+        return removed != null;
     }
 
     public void clearSubtasks() {
+        beforeChange();
         this.status = TaskStatus.NEW;
         startTime = LocalDateTime.MIN;
         endTime = LocalDateTime.MAX;
         duration = Duration.ZERO;
-        isUpdatedStatus = true;
-        isUpdatedTimeAndDuration = true;
+        Arrays.fill(statusCounts, 0);
+        startTimes.clear();
+        endTimes.clear();
         subtasks.clear();
     }
 
-    @Override
-    public LocalDateTime getStartTime() {
-        if (!isUpdatedTimeAndDuration) {
-            updateTimeAndDuration();
-        }
-        return super.getStartTime();
-    }
-
-    @Override
-    public Duration getDuration() {
-        if (!isUpdatedTimeAndDuration) {
-            updateTimeAndDuration();
-        }
-        return super.getDuration();
-    }
-
     @Override
     public LocalDateTime getEndTime() {
-        if (!isUpdatedTimeAndDuration) {
-            updateTimeAndDuration();
-        }
         return endTime;
     }
 
-    private void updateStatus() {
-        if (subtasks.isEmpty()) {
-            this.status = TaskStatus.NEW;
-            return;
-        }
-        if (subtasks.values().stream().allMatch(s -> s.getStatus().equals(TaskStatus.NEW))) {
-            this.status = TaskStatus.NEW;
-            return;
-        }
-        if (subtasks.values().stream().allMatch(s -> s.getStatus().equals(TaskStatus.DONE))) {
-            this.status = TaskStatus.DONE;
-            return;
+    private void include(Subtask subtask) {
+        statusCounts[subtask.getStatus().ordinal()]++;
+        duration = duration.plus(subtask.getDuration());
+        startTimes.merge(subtask.getStartTime(), 1, Integer::sum);
+        endTimes.merge(subtask.getEndTime(), 1, Integer::sum);
+        refresh();
+    }
+
+    private void exclude(Subtask subtask) {
+        statusCounts[subtask.getStatus().ordinal()]--;
+        duration = duration.minus(subtask.getDuration());
+        // счётчик, дошедший до нуля, удаляет ключ
+        startTimes.computeIfPresent(subtask.getStartTime(), (time, count) -> count > 1 ? count - 1
+            : null);
+        endTimes.computeIfPresent(subtask.getEndTime(), (time, count) -> count > 1 ? count - 1
+            : null);
+        refresh();
+    }
+
+    private void refresh() {
+        int size = subtasks.size();
+        if (size == 0 || statusCounts[TaskStatus.NEW.ordinal()] == size) {
+            status = TaskStatus.NEW;
+        } else if (statusCounts[TaskStatus.DONE.ordinal()] == size) {
+            status = TaskStatus.DONE;
+        } else {
+            status = TaskStatus.IN_PROGRESS;
         }
-        this.status = TaskStatus.IN_PROGRESS;
-        isUpdatedStatus = true;
-    }
-
-    private void updateTimeAndDuration() {
-        duration = subtasks.values().stream().map(Task::getDuration)
-            .reduce(Duration.ZERO, Duration::plus);
-        startTime = subtasks.values().stream().map(Task::getStartTime).min(LocalDateTime::compareTo)
-            .orElse(LocalDateTime.MIN);
-        endTime = subtasks.values().stream().map(Task::getEndTime).max(LocalDateTime::compareTo)
-            .orElse(LocalDateTime.MAX);
-        isUpdatedTimeAndDuration = true;
+        startTime = startTimes.isEmpty() ? LocalDateTime.MIN : startTimes.firstKey();
+        endTime = endTimes.isEmpty() ? LocalDateTime.MAX : endTimes.lastKey();
     }
 
     @Override
@@ -137,10 +126,22 @@ public class Epic extends Task {
         return super.getCSV().replace(TaskType.TASK.toString(), TaskType.EPIC.toString());
     }
 
+    // подзадачи эпика уже хранятся снимками, поэтому выданные историей объекты не меняются вместе
+    // с подзадачами; снимку остаётся закрыть для изменения собственную копию отображения
+    @Override
+    protected Task freeze(Task copy) {
+        Epic epic = (Epic) copy;
+        epic.subtasks.freeze();
+        return super.freeze(epic);
+    }
+
     @Override
     public Epic clone() throws CloneNotSupportedException {
         Epic clone = (Epic) super.clone();
-        clone.subtasks = new HashMap<>(this.subtasks);
+        clone.subtasks = new IntMap<>(this.subtasks);
+        clone.statusCounts = statusCounts.clone();
+        clone.startTimes = new TreeMap<>(startTimes);
+        clone.endTimes = new TreeMap<>(endTimes);
         return clone;
     }
 }
@@ -7,12 +7,19 @@ import java.util.Objects;
 
 public class Task implements Cloneable, Comparable<Task> {
 
+    // полный порядок приоритетного списка: задачи с одинаковым временем начала различаются по id
+    private static final Comparator<Task> PRIORITY_ORDER = Comparator.comparing(Task::getStartTime)
+        .thenComparingInt(Task::getId);
     protected String name;
     protected String description;
     protected int id;
     protected TaskStatus status;
     protected Duration duration;
     protected LocalDateTime startTime;
+    // неизменяемый снимок текущей версии: создаётся при первом запросе и сбрасывается при любом
+    // изменении, поэтому читатели одной версии получают один и тот же объект без копирования
+    private volatile Task snapshot;
+    private boolean frozen;
 
     public Task(String name, String description, int id, TaskStatus status, Duration duration,
         LocalDateTime startTime) {
@@ -33,6 +40,7 @@ public class Task implements Cloneable, Comparable<Task> {
     }
 
     public void setDuration(Duration duration) {
+        beforeChange();
         this.duration = duration;
     }
 
@@ -41,6 +49,7 @@ public class Task implements Cloneable, Comparable<Task> {
     }
 
     public void setStartTime(LocalDateTime startTime) {
+        beforeChange();
         this.startTime = startTime;
     }
 
@@ -53,6 +62,7 @@ public class Task implements Cloneable, Comparable<Task> {
     }
 
     public void setName(String name) {
+        beforeChange();
         this.name = name;
     }
 
@@ -61,6 +71,7 @@ public class Task implements Cloneable, Comparable<Task> {
     }
 
     public void setDescription(String description) {
+        beforeChange();
         this.description = description;
     }
 
@@ -69,6 +80,7 @@ public class Task implements Cloneable, Comparable<Task> {
     }
 
     public void setId(int id) {
+        beforeChange();
         this.id = id;
     }
 
@@ -77,6 +89,7 @@ public class Task implements Cloneable, Comparable<Task> {
     }
 
     public void setStatus(TaskStatus status) {
+        beforeChange();
         this.status = status;
     }
 
@@ -116,9 +129,45 @@ public class Task implements Cloneable, Comparable<Task> {
         clone.description = description;
         clone.duration = duration;
         clone.startTime = startTime;
+        clone.snapshot = null;
+        clone.frozen = false;
         return clone;
     }
 
+    public Task snapshot() {
+        if (frozen) {
+            return this;
+        }
+        Task result = snapshot;
+        if (result == null) {
+            try {
+                result = freeze(clone());
+            } catch (CloneNotSupportedException e) {
+                throw new RuntimeException(e);
+            }
+            snapshot = result;
+        }
+        return result;
+    }
+
+    public boolean isSnapshot() {
+        return frozen;
+    }
+
+    // наследники дополнительно закрывают для изменения собственные коллекции копии
+    protected Task freeze(Task copy) {
+        copy.frozen = true;
+        return copy;
+    }
+
+    // вызывается перед каждым изменением: снимок изменить нельзя, а у задачи устаревает её снимок
+    protected void beforeChange() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Снимок задачи не изменяется.");
+        }
+        snapshot = null;
+    }
+
     public boolean overlaps(Task other) {
         LocalDateTime start1 = this.getStartTime(), start2 = other.getStartTime(), end1 = this.getEndTime(), end2
             = other.getEndTime();
@@ -132,6 +181,6 @@ public class Task implements Cloneable, Comparable<Task> {
         if (other == null) {
             throw new IllegalArgumentException();
         }
-        return Comparator.comparing(Task::getStartTime).compare(this, other);
+        return PRIORITY_ORDER.compare(this, other);
     }
 }
@@ -0,0 +1,136 @@
+package ru.yandex.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.function.Consumer;
+import ru.yandex.exceptions.ManagerLoadException;
+import ru.yandex.model.Epic;
+import ru.yandex.model.Subtask;
+import ru.yandex.model.Task;
+import ru.yandex.model.TaskStatus;
+import ru.yandex.model.TaskType;
+
+// двоичный снимок задач. Заголовок: сигнатура (int), версия формата (short), число записей (int).
+// Запись: тип (byte), id (int), статус (byte), имя и описание (длина в байтах и UTF-8); для задач
+// и подзадач далее длительность (секунды long, наносекунды int) и время начала (секунды от эпохи
+// в UTC long, наносекунды int), для подзадач - id эпика (int). Время и длительность эпика
+// вычисляются по подзадачам и не сохраняются
+public class BinarySnapshot {
+
+    private static final int MAGIC = 0x4B42534E;
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES + Short.BYTES + Integer.BYTES;
+
+    private BinarySnapshot() {
+    }
+
+    public static boolean isBinary(Path file) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            byte[] magic = input.readNBytes(Integer.BYTES);
+            return magic.length == Integer.BYTES && ByteBuffer.wrap(magic).getInt() == MAGIC;
+        }
+    }
+
+    // задачи должны идти в порядке возрастания id, чтобы эпик предшествовал своим подзадачам
+    public static void write(Collection<? extends Task> tasks, OutputStream output)
+        throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(output));
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+        data.writeInt(tasks.size());
+        for (Task task : tasks) {
+            TaskType type = task instanceof Epic ? TaskType.EPIC
+                : (task instanceof Subtask ? TaskType.SUBTASK : TaskType.TASK);
+            data.writeByte(type.ordinal());
+            data.writeInt(task.getId());
+            data.writeByte(task.getStatus().ordinal());
+            writeString(data, task.getName());
+            writeString(data, task.getDescription());
+            if (type == TaskType.EPIC) {
+                continue;
+            }
+            data.writeLong(task.getDuration().getSeconds());
+            data.writeInt(task.getDuration().getNano());
+            data.writeLong(task.getStartTime().toEpochSecond(ZoneOffset.UTC));
+            data.writeInt(task.getStartTime().getNano());
+            if (type == TaskType.SUBTASK) {
+                data.writeInt(((Subtask) task).getEpicId());
+            }
+        }
+        data.flush();
+    }
+
+    // файл отображается в память целиком и разбирается без промежуточных строк
+    public static void read(Path file, Consumer<Task> consumer) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new ManagerLoadException("Файл сохранения слишком велик.");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                channel.size());
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+                throw new ManagerLoadException("Некорректный формат файла сохранения.");
+            }
+            if (buffer.getShort() != VERSION) {
+                throw new ManagerLoadException("Неподдерживаемая версия файла сохранения.");
+            }
+            TaskType[] types = TaskType.values();
+            TaskStatus[] statuses = TaskStatus.values();
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                TaskType type = types[buffer.get()];
+                int id = buffer.getInt();
+                TaskStatus status = statuses[buffer.get()];
+                String name = readString(buffer);
+                String description = readString(buffer);
+                if (type == TaskType.EPIC) {
+                    consumer.accept(new Epic(name, description, id));
+                    continue;
+                }
+                Duration duration = Duration.ofSeconds(buffer.getLong(), buffer.getInt());
+                LocalDateTime startTime = LocalDateTime.ofEpochSecond(buffer.getLong(),
+                    buffer.getInt(), ZoneOffset.UTC);
+                consumer.accept(type == TaskType.SUBTASK
+                    ? new Subtask(name, description, id, status, buffer.getInt(), duration,
+                    startTime) : new Task(name, description, id, status, duration, startTime));
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | DateTimeException
+                 | ArithmeticException e) {
+            throw new ManagerLoadException("Некорректный формат файла сохранения.");
+        } catch (IOException e) {
+            throw new ManagerLoadException("Ошибка при чтении данных из файла.");
+        }
+    }
+
+    private static void writeString(DataOutputStream data, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new ManagerLoadException("Некорректный формат файла сохранения.");
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,42 @@
+package ru.yandex.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import ru.yandex.model.Task;
+import ru.yandex.util.TaskRing;
+
+// история ограниченной ёмкости: при переполнении вытесняется самый давний просмотр. Память
+// выделяется один раз при создании, просмотры не создают новых объектов
+public class BoundedHistoryManager implements HistoryManager {
+
+    private final TaskRing history;
+
+    public BoundedHistoryManager(int capacity) {
+        history = new TaskRing(capacity);
+    }
+
+    public int getCapacity() {
+        return history.capacity();
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        history.addLast(task);
+    }
+
+    @Override
+    public void remove(int id) {
+        history.remove(id);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        // снимки неизменяемы и переиспользуются, пока задача не изменится
+        return history.toList().stream().map(Task::snapshot)
+            .collect(Collectors.toCollection(ArrayList::new));
+    }
+}
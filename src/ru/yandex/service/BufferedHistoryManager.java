@@ -0,0 +1,176 @@
+package ru.yandex.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import ru.yandex.model.Task;
+
+// потокобезопасная обёртка истории для частых чтений: просмотр только кладётся в один из
+// полосатых буферов, а в историю буферы переносятся пачками под блокировкой, которую никто не
+// ждёт - её берёт тот, кому она досталась через tryLock. Буферы теряющие: при гонке за ячейку
+// или переполнении под нагрузкой просмотр отбрасывается. Каждый просмотр получает общий
+// порядковый номер, и пачка из всех буферов переносится в историю в порядке номеров, поэтому
+// просмотры, разнесённые во времени, попадают в историю в том же порядке, в каком сделаны
+public class BufferedHistoryManager implements HistoryManager {
+
+    // ёмкость одного буфера; перенос начинается, как только буфер заполнен наполовину
+    private static final int BUFFER_SIZE = 16;
+    private static final int DRAIN_THRESHOLD = BUFFER_SIZE / 2;
+    private final HistoryManager historyManager;
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final Buffer[] buffers;
+    private final int mask;
+    private final AtomicLong sequence = new AtomicLong();
+    // пачка текущего переноса; используется только владельцем drainLock
+    private final List<Entry> batch = new ArrayList<>();
+
+    public BufferedHistoryManager(HistoryManager historyManager) {
+        this(historyManager, Runtime.getRuntime().availableProcessors());
+    }
+
+    // stripes округляется вверх до степени двойки
+    public BufferedHistoryManager(HistoryManager historyManager, int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Число буферов должно быть положительным.");
+        }
+        this.historyManager = historyManager;
+        int count = Integer.highestOneBit(stripes);
+        if (count < stripes) {
+            count <<= 1;
+        }
+        buffers = new Buffer[count];
+        for (int i = 0; i < count; i++) {
+            buffers[i] = new Buffer();
+        }
+        mask = count - 1;
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        Buffer buffer = buffers[stripe()];
+        // номер выдаётся до занятия ячейки: так просмотр с меньшим номером не может оказаться в
+        // буфере позади просмотра, получившего номер после начала переноса
+        long seq = sequence.getAndIncrement();
+        int size = buffer.offer(task, seq);
+        if (size < 0) {
+            // буфер полон или ячейку занял другой поток: если перенести буфер сейчас не удаётся,
+            // просмотр теряется
+            if (tryDrain()) {
+                buffer.offer(task, sequence.getAndIncrement());
+            }
+        } else if (size >= DRAIN_THRESHOLD) {
+            tryDrain();
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        drainLock.lock();
+        try {
+            drainAll();
+            historyManager.remove(id);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        drainLock.lock();
+        try {
+            drainAll();
+            return historyManager.getHistory();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    private boolean tryDrain() {
+        if (!drainLock.tryLock()) {
+            return false;
+        }
+        try {
+            drainAll();
+        } finally {
+            drainLock.unlock();
+        }
+        return true;
+    }
+
+    // переносятся только просмотры с номерами меньше выданных к началу переноса. Если просмотр A
+    // завершился до начала просмотра B, а B попал в пачку, то A к этому моменту уже виден в своём
+    // буфере и попадает в ту же или более раннюю пачку, а внутри пачки просмотры упорядочены
+    private void drainAll() {
+        long limit = sequence.get();
+        for (Buffer buffer : buffers) {
+            buffer.drainTo(batch, limit);
+        }
+        batch.sort(Comparator.comparingLong(Entry::seq));
+        batch.forEach(entry -> historyManager.add(entry.task()));
+        batch.clear();
+    }
+
+    // перемешивание id потока, чтобы соседние id попадали в разные буферы
+    private int stripe() {
+        long h = Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & mask;
+    }
+
+    private record Entry(long seq, Task task) {
+    }
+
+    // кольцевой буфер многих писателей и одного читателя (владельца drainLock). Писатель
+    // занимает ячейку сдвигом счётчика записи, записывает номер и только затем публикует задачу
+    private static class Buffer {
+
+        private final AtomicReferenceArray<Task> slots = new AtomicReferenceArray<>(BUFFER_SIZE);
+        private final long[] seqs = new long[BUFFER_SIZE];
+        private final AtomicLong writeCounter = new AtomicLong();
+        private volatile long readCounter;
+
+        // возвращает заполненность буфера после записи или -1, если задача не записана
+        int offer(Task task, long seq) {
+            long head = readCounter;
+            long tail = writeCounter.get();
+            if (tail - head >= BUFFER_SIZE || !writeCounter.compareAndSet(tail, tail + 1)) {
+                return -1;
+            }
+            int index = (int) (tail & (BUFFER_SIZE - 1));
+            seqs[index] = seq;
+            slots.set(index, task);
+            return (int) (tail + 1 - head);
+        }
+
+        // занятая, но ещё не опубликованная ячейка дожидается публикации: писатель уже между
+        // сдвигом счётчика и записью задачи, а пропуск ячейки нарушил бы порядок номеров
+        void drainTo(List<Entry> batch, long limit) {
+            long head = readCounter;
+            long tail = writeCounter.get();
+            while (head < tail) {
+                int index = (int) (head & (BUFFER_SIZE - 1));
+                Task task;
+                while ((task = slots.get(index)) == null) {
+                    Thread.onSpinWait();
+                }
+                if (seqs[index] >= limit) {
+                    break;
+                }
+                batch.add(new Entry(seqs[index], task));
+                slots.lazySet(index, null);
+                head++;
+            }
+            readCounter = head;
+        }
+    }
+}
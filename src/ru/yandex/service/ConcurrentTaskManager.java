@@ -0,0 +1,315 @@
+package ru.yandex.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import ru.yandex.model.Epic;
+import ru.yandex.model.Subtask;
+import ru.yandex.model.Task;
+import ru.yandex.model.TaskStatus;
+import ru.yandex.model.TimeSlot;
+import ru.yandex.util.Page;
+
+// потокобезопасный менеджер: чтения выполняются параллельно под общей блокировкой, изменения -
+// под эксклюзивной. Все изменения затрагивают общий индекс пересечений, счётчик id или эпики
+// подзадач, поэтому между собой они всегда конфликтуют и сериализуются одной блокировкой записи
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+
+    public ConcurrentTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    // история обновляется и при чтении, поэтому просмотры копятся в буферах и переносятся в неё
+    // пачками, не блокируя читателей. Просмотр записывается под блокировкой чтения, а удаление
+    // задачи из истории - под блокировкой записи, поэтому удалённая задача в историю не вернётся.
+    // Потокобезопасная история (например, SessionHistoryManager) используется как есть
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        super(historyManager.isThreadSafe() ? historyManager
+            : new BufferedHistoryManager(historyManager));
+    }
+
+    @Override
+    public int addTask(Task task) {
+        return write(() -> super.addTask(task));
+    }
+
+    @Override
+    public int addSubtask(Subtask subtask) {
+        return write(() -> super.addSubtask(subtask));
+    }
+
+    @Override
+    public int addEpic(Epic epic) {
+        return write(() -> super.addEpic(epic));
+    }
+
+    @Override
+    public List<Integer> addTasks(List<? extends Task> tasks) {
+        return write(() -> super.addTasks(tasks));
+    }
+
+    @Override
+    public List<Integer> addSubtasks(List<? extends Subtask> subtasks) {
+        return write(() -> super.addSubtasks(subtasks));
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        write(() -> super.updateTask(task));
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        write(() -> super.updateSubtask(subtask));
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        write(() -> super.updateEpic(epic));
+    }
+
+    @Override
+    public ArrayList<Task> getAllTasks() {
+        return read(super::getAllTasks);
+    }
+
+    // эпики изменяются менеджером на месте, поэтому наружу отдаются их копии
+    @Override
+    public ArrayList<Epic> getAllEpics() {
+        return read(() -> {
+            ArrayList<Epic> result = new ArrayList<>();
+            super.getAllEpics().forEach(epic -> result.add(copyOf(epic)));
+            return result;
+        });
+    }
+
+    @Override
+    public ArrayList<Subtask> getAllSubtasks() {
+        return read(super::getAllSubtasks);
+    }
+
+    @Override
+    public void forEachTask(Consumer<? super Task> action) {
+        read(() -> {
+            super.forEachTask(action);
+            return null;
+        });
+    }
+
+    // в отличие от getAllEpics, копии не нужны: пока идёт обход, блокировка чтения не даёт
+    // изменить эпики
+    @Override
+    public void forEachEpic(Consumer<? super Epic> action) {
+        read(() -> {
+            super.forEachEpic(action);
+            return null;
+        });
+    }
+
+    @Override
+    public void forEachSubtask(Consumer<? super Subtask> action) {
+        read(() -> {
+            super.forEachSubtask(action);
+            return null;
+        });
+    }
+
+    @Override
+    public Page<Task> getTasksPage(int limit, String cursor) {
+        return read(() -> super.getTasksPage(limit, cursor));
+    }
+
+    @Override
+    public Page<Epic> getEpicsPage(int limit, String cursor) {
+        return read(() -> {
+            Page<Epic> page = super.getEpicsPage(limit, cursor);
+            List<Epic> result = new ArrayList<>(page.getItems().size());
+            page.getItems().forEach(epic -> result.add(copyOf(epic)));
+            return new Page<>(result, page.getNextCursor());
+        });
+    }
+
+    @Override
+    public Page<Subtask> getSubtasksPage(int limit, String cursor) {
+        return read(() -> super.getSubtasksPage(limit, cursor));
+    }
+
+    @Override
+    public void clearTasks() {
+        write(super::clearTasks);
+    }
+
+    @Override
+    public void clearSubtasks() {
+        write(super::clearSubtasks);
+    }
+
+    @Override
+    public void clearEpics() {
+        write(super::clearEpics);
+    }
+
+    @Override
+    public Task getTask(int id) {
+        return read(() -> super.getTask(id));
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        return read(() -> copyOf(super.getEpic(id)));
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        return read(() -> super.getSubtask(id));
+    }
+
+    @Override
+    public boolean removeTask(int id) {
+        return write(() -> super.removeTask(id));
+    }
+
+    @Override
+    public boolean removeEpic(int id) {
+        return write(() -> super.removeEpic(id));
+    }
+
+    @Override
+    public boolean removeSubtask(int id) {
+        return write(() -> super.removeSubtask(id));
+    }
+
+    @Override
+    public ArrayList<Subtask> getSubtasks(int id) {
+        return read(() -> super.getSubtasks(id));
+    }
+
+    @Override
+    public ArrayList<Task> getPrioritizedTasks() {
+        return read(super::getPrioritizedTasks);
+    }
+
+    @Override
+    public ArrayList<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        return read(() -> super.getPrioritizedTasks(from, to));
+    }
+
+    @Override
+    public List<Task> getTasksStartingBetween(LocalDateTime from, LocalDateTime to) {
+        return read(() -> super.getTasksStartingBetween(from, to));
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(TaskStatus status) {
+        return read(() -> super.getTasksByStatus(status));
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime from, LocalDateTime to,
+        int limit) {
+        return read(() -> super.findFreeSlots(duration, from, to, limit));
+    }
+
+    @Override
+    public Page<Task> getPrioritizedTasksPage(int limit, String cursor) {
+        return read(() -> super.getPrioritizedTasksPage(limit, cursor));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return read(super::getHistory);
+    }
+
+    // открытая транзакция удерживает блокировку записи до commit или rollback: другие потоки
+    // ждут её завершения и не видят промежуточных изменений
+    @Override
+    public void beginTransaction() {
+        writeLock.lock();
+        try {
+            super.beginTransaction();
+        } catch (RuntimeException e) {
+            writeLock.unlock();
+            throw e;
+        }
+    }
+
+    @Override
+    public void commit() {
+        requireOwnTransaction();
+        try {
+            super.commit();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void rollback() {
+        requireOwnTransaction();
+        try {
+            super.rollback();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isInTransaction() {
+        return read(super::isInTransaction);
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    private void requireOwnTransaction() {
+        if (!lock.isWriteLockedByCurrentThread()) {
+            throw new IllegalStateException("Транзакция не открыта в текущем потоке.");
+        }
+    }
+
+    private <T> T read(Supplier<T> action) {
+        readLock.lock();
+        try {
+            return action.get();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private <T> T write(Supplier<T> action) {
+        writeLock.lock();
+        try {
+            return action.get();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void write(Runnable action) {
+        writeLock.lock();
+        try {
+            action.run();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static Epic copyOf(Epic epic) {
+        try {
+            return epic.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package ru.yandex.service;
+
+// SYNC - запись и fsync в потоке вызывающего на каждое изменение; GROUP_COMMIT - изменения
+// копятся в очереди и сбрасываются пачкой с одним fsync, вызывающий ждёт сброса своей пачки;
+// ASYNC - то же, но вызывающий не ждёт записи на диск. GROUP_COMMIT выигрывает у SYNC, только
+// когда изменения параллельно вносят несколько потоков (например, просмотры в
+// PersistentHistoryManager под ConcurrentTaskManager); при последовательных изменениях он лишь
+// добавляет задержку пачки. FileBackedTaskManager не потокобезопасен и пишет изменения по одному,
+// поэтому для его журнала подходят только SYNC и ASYNC
+public enum DurabilityPolicy {
+    SYNC, GROUP_COMMIT, ASYNC
+}
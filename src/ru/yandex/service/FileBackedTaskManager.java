@@ -1,14 +1,30 @@
 package ru.yandex.service;
 
-import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.DateTimeException;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
 import ru.yandex.exceptions.ManagerLoadException;
 import ru.yandex.exceptions.ManagerSaveException;
 import ru.yandex.model.Epic;
@@ -17,12 +33,48 @@ import ru.yandex.model.Task;
 import ru.yandex.model.TaskStatus;
 import ru.yandex.model.TaskType;
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
+public class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
 
     private static final String HEADER = "id,type,name,status,description,duration,start_time,epic";
+    // типы записей журнала изменений
+    private static final String PUT_RECORD = "PUT", REMOVE_RECORD = "DEL", CLEAR_RECORD = "CLR";
+    // суффиксы файлов, используемых при компактизации журнала
+    private static final String COMPACTING = ".compacting", COMPACTED = ".compacted",
+        SNAPSHOT_TMP = ".tmp";
+    private static final long DEFAULT_COMPACTION_RECORDS = 10_000,
+        DEFAULT_COMPACTION_BYTES = 8 * 1024 * 1024;
+    // снимки пишутся одним фоновым потоком, общим для всех менеджеров
+    private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "journal-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
     private final Path saveFile;
+    // в режиме журнала файл сохранения служит базовым образом, а изменения дописываются в журнал
+    private final TaskJournal journal;
+    // пороги запуска компактизации; 0 отключает соответствующий порог
+    private long compactionRecords = DEFAULT_COMPACTION_RECORDS;
+    private long compactionBytes = DEFAULT_COMPACTION_BYTES;
+    private Future<?> compaction = CompletableFuture.completedFuture(null);
+    // формат определяется при загрузке по содержимому файла; читается и потоком компактизации
+    private volatile SnapshotFormat snapshotFormat = SnapshotFormat.CSV;
 
     public FileBackedTaskManager(Path saveFile) {
+        this(saveFile, (TaskJournal) null);
+    }
+
+    public FileBackedTaskManager(Path saveFile, Path journalFile) {
+        this(saveFile, journalFile == null ? null : new TaskJournal(journalFile));
+    }
+
+    // политика записи журнала (синхронная, групповая или асинхронная) задаётся при его создании
+    public FileBackedTaskManager(Path saveFile, TaskJournal journal) {
+        this(saveFile, journal, Managers.getDefaultHistory());
+    }
+
+    public FileBackedTaskManager(Path saveFile, TaskJournal journal,
+        HistoryManager historyManager) {
+        super(historyManager);
         this.saveFile = saveFile;
         if (!Files.exists(saveFile)) {
             try {
@@ -31,6 +83,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
                 throw new ManagerSaveException("Не удалось создать файл сохранения.");
             }
         }
+        this.journal = journal;
     }
 
     public static FileBackedTaskManager loadFromFile(File file) {
@@ -39,62 +92,288 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         return manager;
     }
 
+    public static FileBackedTaskManager loadFromFile(File file, File journalFile) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(file.toPath(),
+            journalFile.toPath());
+        manager.load();
+        return manager;
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file, TaskJournal journal) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(file.toPath(), journal);
+        manager.load();
+        return manager;
+    }
+
+    // история хранится в собственном журнале и после загрузки задач связывается с ними;
+    // journal может быть null
+    public static FileBackedTaskManager loadFromFile(File file, TaskJournal journal,
+        PersistentHistoryManager history) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(file.toPath(), journal, history);
+        manager.load();
+        history.restore(manager::find);
+        return manager;
+    }
+
     public Path getSaveFile() {
         return saveFile;
     }
 
+    public Path getJournalFile() {
+        return journal == null ? null : journal.getFile();
+    }
+
+    // переводит существующий CSV-файл сохранения в двоичный формат
+    public static void convertToBinary(File csvFile, File binaryFile) {
+        FileBackedTaskManager manager = loadFromFile(csvFile);
+        try (OutputStream output = new FileOutputStream(binaryFile)) {
+            BinarySnapshot.write(manager.getAllById(), output);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при сохранении данных в файл.");
+        }
+    }
+
+    public SnapshotFormat getSnapshotFormat() {
+        return snapshotFormat;
+    }
+
+    public void setSnapshotFormat(SnapshotFormat snapshotFormat) {
+        this.snapshotFormat = snapshotFormat;
+    }
+
+    public void setCompactionThreshold(long maxRecords, long maxBytes) {
+        this.compactionRecords = maxRecords;
+        this.compactionBytes = maxBytes;
+    }
+
     private void load() {
-        try (BufferedReader input = new BufferedReader(new FileReader(saveFile.toFile()))) {
-            if (!input.ready()) {
-                return;
+        if (journal != null) {
+            recoverCompaction();
+        }
+        tasks.clear();
+        epics.clear();
+        subtasks.clear();
+        prioritizedTasks.clear();
+        overlapIndex.clear();
+        freeId = 0;
+        try {
+            if (BinarySnapshot.isBinary(saveFile)) {
+                snapshotFormat = SnapshotFormat.BINARY;
+                BinarySnapshot.read(saveFile, this::restore);
+            } else {
+                loadCSV();
             }
-            if (!input.readLine().equals(HEADER)) {
-                throw new ManagerLoadException("Некорректный формат файла сохранения.");
+        } catch (IOException e) {
+            throw new ManagerLoadException("Ошибка при чтении данных из файла.");
+        }
+        if (journal != null) {
+            // повтор удалений не трогает историю: она восстанавливается из своего журнала уже
+            // после загрузки, и удалённые задачи в неё не попадут
+            withoutHistory(() -> {
+                // прерванная компактизация: досчитываем состояние на момент ротации и дописываем
+                // снимок
+                Path compacting = siblingOf(journal.getFile(), COMPACTING);
+                if (Files.exists(compacting)) {
+                    TaskJournal.readRecords(compacting).forEach(this::replay);
+                    finishCompaction(captureSnapshot());
+                }
+                journal.readRecords().forEach(this::replay);
+            });
+        }
+    }
+
+    // строки разбираются параллельно кусками, выровненными по границам строк; затем задачи
+    // сортируются по id (устойчиво, поэтому из повторов побеждает поздняя строка) и сначала
+    // восстанавливаются эпики, а потом остальные задачи. Порядок строк в файле не важен, а
+    // отображения заполняются дописыванием в конец
+    private void loadCSV() throws IOException {
+        byte[] content = Files.readAllBytes(saveFile);
+        if (content.length == 0) {
+            return;
+        }
+        int headerEnd = lineEnd(content, 0, content.length);
+        if (!decodeLine(content, 0, headerEnd).equals(HEADER)) {
+            throw new ManagerLoadException("Некорректный формат файла сохранения.");
+        }
+        List<Task> parsed = ForkJoinPool.commonPool().invoke(
+            new ChunkParser(content, Math.min(headerEnd + 1, content.length), content.length));
+        parsed.sort(Comparator.comparingInt(Task::getId));
+        parsed.stream().filter(task -> task instanceof Epic).forEach(this::restore);
+        parsed.stream().filter(task -> !(task instanceof Epic)).forEach(this::restore);
+    }
+
+    private static int lineEnd(byte[] content, int from, int to) {
+        int end = from;
+        while (end < to && content[end] != '\n') {
+            end++;
+        }
+        return end;
+    }
+
+    private static String decodeLine(byte[] content, int from, int to) {
+        if (to > from && content[to - 1] == '\r') {
+            to--;
+        }
+        return new String(content, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    private static class ChunkParser extends RecursiveTask<List<Task>> {
+
+        private static final long serialVersionUID = 1L;
+        private static final int CHUNK_SIZE = 256 * 1024;
+        private final byte[] content;
+        private final int from;
+        private final int to;
+
+        ChunkParser(byte[] content, int from, int to) {
+            this.content = content;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Task> compute() {
+            if (to - from > CHUNK_SIZE) {
+                int middle = lineEnd(content, from + (to - from) / 2, to) + 1;
+                if (middle < to) {
+                    ChunkParser left = new ChunkParser(content, from, middle);
+                    ChunkParser right = new ChunkParser(content, middle, to);
+                    right.fork();
+                    List<Task> result = new ArrayList<>(left.compute());
+                    result.addAll(right.join());
+                    return result;
+                }
             }
-            tasks.clear();
-            epics.clear();
-            subtasks.clear();
-            freeId = 0;
-            while (input.ready()) {
-                String[] split = input.readLine().split(",");
-                int id = Integer.parseInt(split[0]);
-                TaskType type = TaskType.valueOf(split[1]);
-                String name = split[2];
-                TaskStatus status = TaskStatus.valueOf(split[3]);
-                String description = split[4];
-                Duration duration = Duration.parse(split[5]);
-                LocalDateTime startTime = LocalDateTime.parse(split[6]);
-                switch (type) {
-                    case TaskType.TASK:
-                        Task task = new Task(name, description, id, status, duration, startTime);
-                        tasks.put(id, task);
-                        prioritizedTasks.add(task);
-                        freeId = Integer.max(id + 1, freeId);
-                        break;
-                    case TaskType.EPIC:
-                        Epic epic = new Epic(name, description, id);
-                        epics.put(id, epic);
-                        freeId = Integer.max(id + 1, freeId);
-                        break;
-                    case TaskType.SUBTASK:
-                        int epicId = Integer.parseInt(split[7]);
-                        Subtask subtask = new Subtask(name, description, id, status, epicId,
-                            duration, startTime);
-                        epics.get(epicId).addSubtask(subtask);
-                        subtasks.put(id, subtask);
-                        prioritizedTasks.add(subtask);
-                        freeId = Integer.max(id + 1, freeId);
-                        break;
-                    default:
+            List<Task> result = new ArrayList<>();
+            int lineStart = from;
+            while (lineStart < to) {
+                int end = lineEnd(content, lineStart, to);
+                String line = decodeLine(content, lineStart, end);
+                if (!line.isEmpty()) {
+                    try {
+                        result.add(fromCSV(line));
+                    } catch (IllegalArgumentException | IndexOutOfBoundsException
+                             | DateTimeException e) {
                         throw new ManagerLoadException("Некорректный формат файла сохранения.");
+                    }
                 }
+                lineStart = end + 1;
             }
+            return result;
+        }
+    }
+
+    // если снимок уже записан и сегмент журнала помечен как учтённый, завершаем замену файла
+    // сохранения; недописанный временный снимок удаляется
+    private void recoverCompaction() {
+        Path compacted = siblingOf(journal.getFile(), COMPACTED);
+        Path snapshot = siblingOf(saveFile, SNAPSHOT_TMP);
+        try {
+            if (Files.exists(compacted)) {
+                if (Files.exists(snapshot)) {
+                    Files.move(snapshot, saveFile, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                }
+                Files.delete(compacted);
+            }
+            Files.deleteIfExists(snapshot);
         } catch (IOException e) {
-            throw new ManagerLoadException("Ошибка при чтении данных из файла.");
+            throw new ManagerLoadException("Ошибка при восстановлении после компактизации.");
+        }
+    }
+
+    private static Task fromCSV(String line) {
+        String[] split = line.split(",");
+        int id = Integer.parseInt(split[0]);
+        TaskType type = TaskType.valueOf(split[1]);
+        String name = split[2];
+        TaskStatus status = TaskStatus.valueOf(split[3]);
+        String description = split[4];
+        Duration duration = Duration.parse(split[5]);
+        LocalDateTime startTime = LocalDateTime.parse(split[6]);
+        return switch (type) {
+            case TaskType.TASK -> new Task(name, description, id, status, duration, startTime);
+            case TaskType.EPIC -> new Epic(name, description, id);
+            case TaskType.SUBTASK -> new Subtask(name, description, id, status,
+                Integer.parseInt(split[7]), duration, startTime);
+        };
+    }
+
+    // помещает задачу с уже назначенным id в хранилище, заменяя предыдущую версию, если она есть
+    private void restore(Task task) {
+        int id = task.getId();
+        if (task instanceof Epic epic) {
+            Epic oldEpic = epics.get(id);
+            if (oldEpic == null) {
+                epics.put(id, epic);
+            } else {
+                oldEpic.setName(epic.getName());
+                oldEpic.setDescription(epic.getDescription());
+            }
+        } else if (task instanceof Subtask subtask) {
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic == null) {
+                throw new ManagerLoadException("Некорректный формат файла сохранения.");
+            }
+            Subtask oldSubtask = subtasks.put(id, subtask);
+            if (oldSubtask != null) {
+                prioritizedTasks.remove(oldSubtask);
+                epic.updateSubtask(subtask);
+            } else {
+                epic.addSubtask(subtask);
+            }
+            prioritizedTasks.add(subtask);
+            overlapIndex.add(subtask);
+        } else {
+            Task oldTask = tasks.put(id, task);
+            if (oldTask != null) {
+                prioritizedTasks.remove(oldTask);
+            }
+            prioritizedTasks.add(task);
+            overlapIndex.add(task);
+        }
+        freeId = Integer.max(id + 1, freeId);
+    }
+
+    private void replay(String record) {
+        String[] split = record.split(",", 2);
+        try {
+            switch (split[0]) {
+                case PUT_RECORD -> restore(fromCSV(split[1]));
+                case REMOVE_RECORD -> {
+                    int id = Integer.parseInt(split[1]);
+                    if (tasks.containsKey(id)) {
+                        super.removeTask(id);
+                    } else if (subtasks.containsKey(id)) {
+                        super.removeSubtask(id);
+                    } else {
+                        super.removeEpic(id);
+                    }
+                }
+                case CLEAR_RECORD -> {
+                    switch (TaskType.valueOf(split[1])) {
+                        case TaskType.TASK -> super.clearTasks();
+                        case TaskType.EPIC -> super.clearEpics();
+                        case TaskType.SUBTASK -> super.clearSubtasks();
+                    }
+                }
+                default -> throw new ManagerLoadException(
+                    "Некорректный формат журнала изменений.");
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeException e) {
+            throw new ManagerLoadException("Некорректный формат журнала изменений.");
         }
     }
 
     private void save() {
+        if (snapshotFormat == SnapshotFormat.BINARY) {
+            try (OutputStream output = new FileOutputStream(saveFile.toFile())) {
+                BinarySnapshot.write(getAllById(), output);
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка при сохранении данных в файл.");
+            }
+            return;
+        }
         try (PrintStream print = new PrintStream(saveFile.toFile())) {
             print.println(HEADER);
             int curId = 0;
@@ -114,81 +393,307 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         }
     }
 
+    public void compact() {
+        if (journal == null || !compaction.isDone() || Files.exists(
+            siblingOf(journal.getFile(), COMPACTING))) {
+            return;
+        }
+        // копия состояния снимается в памяти, запись на диск выполняется в фоне
+        List<Task> snapshot = captureSnapshot();
+        journal.rotate(siblingOf(journal.getFile(), COMPACTING));
+        compaction = COMPACTOR.submit(() -> finishCompaction(snapshot));
+    }
+
+    public void awaitCompaction() {
+        try {
+            compaction.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new ManagerSaveException("Ошибка при компактизации журнала изменений.");
+        }
+    }
+
+    // дожидается записи на диск всех изменений, в том числе отложенных журналом
+    public void flush() {
+        if (journal != null) {
+            journal.flush();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (journal != null) {
+            journal.flush();
+            awaitCompaction();
+            journal.close();
+        }
+    }
+
+    public JournalStats getJournalStats() {
+        return journal == null ? null : journal.getStats();
+    }
+
+    private void compactIfNeeded() {
+        if ((compactionRecords > 0 && journal.getRecordCount() >= compactionRecords) || (
+            compactionBytes > 0 && journal.getSize() >= compactionBytes)) {
+            compact();
+        }
+    }
+
+    // все задачи, эпики и подзадачи в порядке возрастания id
+    private List<Task> getAllById() {
+        List<Task> all = new ArrayList<>(tasks.size() + epics.size() + subtasks.size());
+        for (int curId = 0; curId < freeId; curId++) {
+            Task task = tasks.get(curId), epic = epics.get(curId), subtask = subtasks.get(curId);
+            Task curTask = task != null ? task : (epic != null ? epic : subtask);
+            if (curTask != null) {
+                all.add(curTask);
+            }
+        }
+        return all;
+    }
+
+    private List<Task> captureSnapshot() {
+        List<Task> snapshot = getAllById();
+        try {
+            for (int i = 0; i < snapshot.size(); i++) {
+                snapshot.set(i, snapshot.get(i).clone());
+            }
+        } catch (CloneNotSupportedException e) {
+            throw new RuntimeException(e);
+        }
+        return snapshot;
+    }
+
+    // порядок шагов гарантирует, что сегмент журнала никогда не проигрывается поверх снимка,
+    // который его уже учитывает
+    private void finishCompaction(List<Task> snapshot) {
+        Path compacting = siblingOf(journal.getFile(), COMPACTING);
+        Path compacted = siblingOf(journal.getFile(), COMPACTED);
+        Path snapshotFile = siblingOf(saveFile, SNAPSHOT_TMP);
+        try {
+            writeSnapshot(snapshot, snapshotFile);
+            Files.move(compacting, compacted, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(snapshotFile, saveFile, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(compacted);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при компактизации журнала изменений.");
+        }
+    }
+
+    private void writeSnapshot(List<Task> snapshot, Path file) throws IOException {
+        if (snapshotFormat == SnapshotFormat.BINARY) {
+            try (FileOutputStream output = new FileOutputStream(file.toFile())) {
+                BinarySnapshot.write(snapshot, output);
+                output.getFD().sync();
+            }
+            return;
+        }
+        try (FileOutputStream output = new FileOutputStream(file.toFile());
+            PrintStream print = new PrintStream(new BufferedOutputStream(output))) {
+            print.println(HEADER);
+            snapshot.forEach(task -> print.println(task.getCSV()));
+            print.flush();
+            if (print.checkError()) {
+                throw new IOException("Ошибка при записи снимка.");
+            }
+            output.getFD().sync();
+        }
+    }
+
+    private static Path siblingOf(Path file, String suffix) {
+        return file.resolveSibling(file.getFileName() + suffix);
+    }
+
+    // транзакция сохраняется одной перезаписью файла или одной серией записей журнала: сначала
+    // удаления (подзадачи раньше эпиков), затем текущие версии (эпики раньше подзадач)
+    @Override
+    protected void persistTransaction(Map<Integer, Task> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        if (journal == null) {
+            save();
+            return;
+        }
+        List<String> records = new ArrayList<>();
+        changes.forEach((id, before) -> {
+            if (before instanceof Subtask && !subtasks.containsKey(id)) {
+                records.add(REMOVE_RECORD + "," + id);
+            }
+        });
+        changes.forEach((id, before) -> {
+            if (before != null && !(before instanceof Subtask) && find(id) == null) {
+                records.add(REMOVE_RECORD + "," + id);
+            }
+        });
+        changes.keySet().stream().filter(epics::containsKey)
+            .forEach(id -> records.add(PUT_RECORD + "," + epics.get(id).getCSV()));
+        changes.keySet().stream().filter(id -> !epics.containsKey(id)).map(this::find)
+            .filter(Objects::nonNull)
+            .forEach(task -> records.add(PUT_RECORD + "," + task.getCSV()));
+        journal.appendAll(records);
+        compactIfNeeded();
+    }
+
+    private Task find(int id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            task = subtasks.get(id);
+        }
+        return task != null ? task : epics.get(id);
+    }
+
+    // методы saveX сохраняют изменение: целиком перезаписывают файл или дописывают одну запись в
+    // журнал, если он включён
+
+    private void saveTask(Task task) {
+        if (isInTransaction()) {
+            return;
+        }
+        if (journal == null) {
+            save();
+        } else {
+            journal.append(PUT_RECORD + "," + task.getCSV());
+            compactIfNeeded();
+        }
+    }
+
+    // пакет сохраняется одной перезаписью файла или одной серией записей журнала
+    private void saveTasks(List<? extends Task> batch) {
+        if (batch.isEmpty() || isInTransaction()) {
+            return;
+        }
+        if (journal == null) {
+            save();
+        } else {
+            journal.appendAll(batch.stream().map(task -> PUT_RECORD + "," + task.getCSV())
+                .toList());
+            compactIfNeeded();
+        }
+    }
+
+    private void saveRemoval(int id) {
+        if (isInTransaction()) {
+            return;
+        }
+        if (journal == null) {
+            save();
+        } else {
+            journal.append(REMOVE_RECORD + "," + id);
+            compactIfNeeded();
+        }
+    }
+
+    private void saveClear(TaskType type) {
+        if (isInTransaction()) {
+            return;
+        }
+        if (journal == null) {
+            save();
+        } else {
+            journal.append(CLEAR_RECORD + "," + type);
+            compactIfNeeded();
+        }
+    }
+
     @Override
     public int addTask(Task task) {
         int id = super.addTask(task);
-        save();
+        saveTask(task);
         return id;
     }
 
     @Override
     public int addEpic(Epic epic) {
         int id = super.addEpic(epic);
-        save();
+        saveTask(epic);
         return id;
     }
 
     @Override
     public int addSubtask(Subtask subtask) {
         int id = super.addSubtask(subtask);
-        save();
+        saveTask(subtask);
         return id;
     }
 
+    @Override
+    public List<Integer> addTasks(List<? extends Task> batch) {
+        List<Integer> ids = super.addTasks(batch);
+        saveTasks(batch);
+        return ids;
+    }
+
+    @Override
+    public List<Integer> addSubtasks(List<? extends Subtask> batch) {
+        List<Integer> ids = super.addSubtasks(batch);
+        saveTasks(batch);
+        return ids;
+    }
+
     @Override
     public void updateTask(Task task) {
         super.updateTask(task);
-        save();
+        saveTask(task);
     }
 
     @Override
     public void updateEpic(Epic epic) {
         super.updateEpic(epic);
-        save();
+        saveTask(epics.get(epic.getId()));
     }
 
     @Override
     public void updateSubtask(Subtask subtask) {
         super.updateSubtask(subtask);
-        save();
+        saveTask(subtask);
     }
 
     @Override
     public void clearTasks() {
         super.clearTasks();
-        save();
+        saveClear(TaskType.TASK);
     }
 
     @Override
     public void clearEpics() {
         super.clearEpics();
-        save();
+        saveClear(TaskType.EPIC);
     }
 
     @Override
     public void clearSubtasks() {
         super.clearSubtasks();
-        save();
+        saveClear(TaskType.SUBTASK);
     }
 
     @Override
     public boolean removeTask(int id) {
         boolean result = super.removeTask(id);
-        save();
+        if (result) {
+            saveRemoval(id);
+        }
         return result;
     }
 
     @Override
     public boolean removeEpic(int id) {
         boolean result = super.removeEpic(id);
-        save();
+        if (result) {
+            saveRemoval(id);
+        }
         return result;
     }
 
     @Override
     public boolean removeSubtask(int id) {
         boolean result = super.removeSubtask(id);
-        save();
+        if (result) {
+            saveRemoval(id);
+        }
         return result;
     }
 }
@@ -10,4 +10,9 @@ public interface HistoryManager {
     void remove(int id);
 
     List<Task> getHistory();
+
+    // потокобезопасную историю ConcurrentTaskManager использует без дополнительной обёртки
+    default boolean isThreadSafe() {
+        return false;
+    }
 }
@@ -26,12 +26,8 @@ public class InMemoryHistoryManager implements HistoryManager {
 
     @Override
     public List<Task> getHistory() {
-        return history.toList().stream().map(t -> {
-            try {
-                return t.clone();
-            } catch (CloneNotSupportedException e) {
-                throw new RuntimeException(e);
-            }
-        }).collect(Collectors.toCollection(ArrayList::new)); // возвращает deep copy поля history
+        // снимки неизменяемы и переиспользуются, пока задача не изменится
+        return history.toList().stream().map(Task::snapshot)
+            .collect(Collectors.toCollection(ArrayList::new));
     }
 }
@@ -1,60 +1,165 @@
 package ru.yandex.service;
 
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import ru.yandex.exceptions.BulkInsertException;
 import ru.yandex.exceptions.TaskNotFoundException;
 import ru.yandex.exceptions.TaskOverlapException;
 import ru.yandex.model.Epic;
 import ru.yandex.model.Subtask;
 import ru.yandex.model.Task;
+import ru.yandex.model.TaskStatus;
+import ru.yandex.model.TaskType;
+import ru.yandex.model.TimeSlot;
+import ru.yandex.util.IntMap;
+import ru.yandex.util.IntervalTree;
+import ru.yandex.util.Page;
 
 public class InMemoryTaskManager implements TaskManager {
 
-    protected final HashMap<Integer, Task> tasks = new HashMap<>();
-    protected final HashMap<Integer, Subtask> subtasks = new HashMap<>();
-    protected final HashMap<Integer, Epic> epics = new HashMap<>();
+    // коллекции упорядочены по id, чтобы страница списка начиналась с позиции курсора за O(log n);
+    // ключи хранятся без упаковки
+    protected final IntMap<Task> tasks = new IntMap<>();
+    protected final IntMap<Subtask> subtasks = new IntMap<>();
+    protected final IntMap<Epic> epics = new IntMap<>();
     protected final TreeSet<Task> prioritizedTasks = new TreeSet<>();
-    private final HistoryManager historyManager = Managers.getDefaultHistory();
+    // индекс интервалов выполнения задач и подзадач для быстрой проверки пересечений
+    protected final IntervalTree overlapIndex = new IntervalTree();
+    private final HistoryManager historyManager;
     protected int freeId = 0;
+    // номера версий коллекций по типам; растут после каждого изменения соответствующей коллекции.
+    // Эпики зависят от своих подзадач, поэтому изменение подзадач увеличивает и версию эпиков
+    private final AtomicLongArray versions = new AtomicLongArray(TaskType.values().length);
+    // открытая транзакция: исходные версии изменённых в ней элементов по id (null - элемента до
+    // транзакции не было); вне транзакции - null
+    private Map<Integer, Task> beforeImages;
+    private int freeIdBeforeTransaction;
+    // пока установлен, удаления не передаются в историю (см. withoutHistory)
+    private boolean historyDetached;
+
+    public InMemoryTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+    }
+
+    // действие выполняется без удаления задач из истории: например, повтор журнала изменений при
+    // загрузке, когда удаления уже учтены собственным журналом истории
+    protected void withoutHistory(Runnable action) {
+        boolean previous = historyDetached;
+        historyDetached = true;
+        try {
+            action.run();
+        } finally {
+            historyDetached = previous;
+        }
+    }
+
+    private void forget(int id) {
+        if (!historyDetached) {
+            historyManager.remove(id);
+        }
+    }
 
     // методы добавления возвращают id добавленного элемента
 
     @Override
     public int addTask(Task task) {
         checkOverlap(task, "Невозможно добавить задачу");
-        int id = freeId++;
-        task.setId(id);
-        tasks.put(id, task);
-        prioritizedTasks.add(task);
+        int id = putTask(task);
+        touch(TaskType.TASK);
         return id;
     }
 
     @Override
     public int addSubtask(Subtask subtask) {
         checkOverlap(subtask, "Невозможно добавить подзадачу");
-        if (!epics.containsKey(subtask.getEpicId())) {
-            throw new TaskNotFoundException(
-                "Невозможно добавить подзадачу к эпику #" + String.format("%08d",
-                    subtask.getEpicId())
-                    + ": такого эпика не существует!");
+        checkEpicExists(subtask);
+        int id = putSubtask(subtask);
+        touch(TaskType.SUBTASK);
+        return id;
+    }
+
+    // пакет добавляется целиком или не добавляется вовсе; id возвращаются в порядке пакета
+    @Override
+    public List<Integer> addTasks(List<? extends Task> batch) {
+        checkBatchOverlap(batch, "Невозможно добавить задачу");
+        List<Integer> ids = new ArrayList<>(batch.size());
+        batch.forEach(task -> ids.add(putTask(task)));
+        if (!batch.isEmpty()) {
+            touch(TaskType.TASK);
+        }
+        return ids;
+    }
+
+    @Override
+    public List<Integer> addSubtasks(List<? extends Subtask> batch) {
+        batch.forEach(this::checkEpicExists);
+        checkBatchOverlap(batch, "Невозможно добавить подзадачу");
+        List<Integer> ids = new ArrayList<>(batch.size());
+        batch.forEach(subtask -> ids.add(putSubtask(subtask)));
+        if (!batch.isEmpty()) {
+            touch(TaskType.SUBTASK);
         }
+        return ids;
+    }
+
+    private int putTask(Task task) {
+        int id = freeId++;
+        remember(id);
+        task.setId(id);
+        tasks.put(id, task);
+        prioritizedTasks.add(task);
+        overlapIndex.add(task);
+        return id;
+    }
+
+    private int putSubtask(Subtask subtask) {
         int id = freeId++;
+        remember(id);
+        remember(subtask.getEpicId());
         subtask.setId(id);
         subtasks.put(id, subtask);
         prioritizedTasks.add(subtask);
+        overlapIndex.add(subtask);
         epics.get(subtask.getEpicId()).addSubtask(subtask);
         return id;
     }
 
+    private void checkEpicExists(Subtask subtask) {
+        if (!epics.containsKey(subtask.getEpicId())) {
+            throw new TaskNotFoundException(
+                "Невозможно добавить подзадачу к эпику #" + String.format("%08d",
+                    subtask.getEpicId())
+                    + ": такого эпика не существует!");
+        }
+    }
+
     @Override
     public int addEpic(Epic epic) {
         int id = freeId++;
+        remember(id);
         epic.setId(id);
         epics.put(id, epic);
+        touch(TaskType.EPIC);
         return id;
     }
 
@@ -66,9 +171,12 @@ public class InMemoryTaskManager implements TaskManager {
                     + ": такой задачи не существует!");
         }
         checkOverlap(task, "Невозможно обновить задачу");
+        remember(task.getId());
         prioritizedTasks.remove(tasks.get(task.getId()));
         tasks.put(task.getId(), task);
         prioritizedTasks.add(task);
+        overlapIndex.add(task);
+        touch(TaskType.TASK);
     }
 
     @Override
@@ -79,10 +187,14 @@ public class InMemoryTaskManager implements TaskManager {
                     + ": такой подзадачи не существует!");
         }
         checkOverlap(subtask, "Невозможно обновить подзадачу");
+        remember(subtask.getId());
+        remember(subtask.getEpicId());
         epics.get(subtask.getEpicId()).updateSubtask(subtask);
         prioritizedTasks.remove(subtasks.get(subtask.getId()));
         subtasks.put(subtask.getId(), subtask);
         prioritizedTasks.add(subtask);
+        overlapIndex.add(subtask);
+        touch(TaskType.SUBTASK);
     }
 
     @Override
@@ -92,10 +204,12 @@ public class InMemoryTaskManager implements TaskManager {
                 "Невозможно обновить эпик #" + String.format("%08d", epic.getId())
                     + ": такого эпика не существует!");
         }
+        remember(epic.getId());
         Epic oldEpic = epics.get(epic.getId());
         oldEpic.setName(epic.getName());
         oldEpic.setDescription(epic.getDescription());
         epics.put(epic.getId(), oldEpic);
+        touch(TaskType.EPIC);
     }
 
     @Override
@@ -113,29 +227,100 @@ public class InMemoryTaskManager implements TaskManager {
         return new ArrayList<>(subtasks.values());
     }
 
+    @Override
+    public void forEachTask(Consumer<? super Task> action) {
+        tasks.values().forEach(action);
+    }
+
+    @Override
+    public void forEachEpic(Consumer<? super Epic> action) {
+        epics.values().forEach(action);
+    }
+
+    @Override
+    public void forEachSubtask(Consumer<? super Subtask> action) {
+        subtasks.values().forEach(action);
+    }
+
+    @Override
+    public Page<Task> getTasksPage(int limit, String cursor) {
+        return pageById(tasks, limit, cursor);
+    }
+
+    @Override
+    public Page<Epic> getEpicsPage(int limit, String cursor) {
+        return pageById(epics, limit, cursor);
+    }
+
+    @Override
+    public Page<Subtask> getSubtasksPage(int limit, String cursor) {
+        return pageById(subtasks, limit, cursor);
+    }
+
+    // курсор - id последнего элемента предыдущей страницы
+    private static <T extends Task> Page<T> pageById(IntMap<T> items, int limit, String cursor) {
+        Iterator<T> tail = items.values().iterator();
+        if (cursor != null) {
+            String position = Page.decodeCursor(cursor);
+            try {
+                tail = items.valuesAfter(Integer.parseInt(position));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Некорректный курсор: " + cursor);
+            }
+        }
+        return page(tail, limit, task -> String.valueOf(task.getId()));
+    }
+
+    // размер хвостовой коллекции не запрашивается: обходится только сама страница
+    private static <T extends Task> Page<T> page(Iterator<T> tail, int limit,
+        Function<T, String> position) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным.");
+        }
+        List<T> items = new ArrayList<>(Integer.min(limit, 64));
+        while (tail.hasNext() && items.size() < limit) {
+            items.add(tail.next());
+        }
+        String nextCursor = tail.hasNext() ? Page.encodeCursor(position.apply(items.getLast()))
+            : null;
+        return new Page<>(items, nextCursor);
+    }
+
     @Override
     public void clearTasks() {
-        tasks.keySet().forEach(historyManager::remove);
-        prioritizedTasks.removeAll(tasks.values());
+        tasks.forEachKey(this::remember);
+        tasks.forEachKey(historyManager::remove);
+        tasks.forEachKey(overlapIndex::remove);
+        tasks.values().forEach(prioritizedTasks::remove);
         tasks.clear();
+        touch(TaskType.TASK);
     }
 
     @Override
     public void clearSubtasks() {
+        epics.forEachKey(this::remember);
+        subtasks.forEachKey(this::remember);
         epics.values().forEach(Epic::clearSubtasks);
-        subtasks.keySet().forEach(historyManager::remove);
-        prioritizedTasks.removeAll(subtasks.values());
+        subtasks.forEachKey(historyManager::remove);
+        subtasks.forEachKey(overlapIndex::remove);
+        subtasks.values().forEach(prioritizedTasks::remove);
         subtasks.clear();
+        touch(TaskType.SUBTASK);
     }
 
     @Override
     public void clearEpics() {
         // подзадачи не могут существовать без эпиков, поэтому также удаляются
-        subtasks.keySet().forEach(historyManager::remove);
-        epics.keySet().forEach(historyManager::remove);
-        prioritizedTasks.removeAll(subtasks.values());
+        subtasks.forEachKey(this::remember);
+        epics.forEachKey(this::remember);
+        subtasks.forEachKey(historyManager::remove);
+        epics.forEachKey(historyManager::remove);
+        subtasks.forEachKey(overlapIndex::remove);
+        subtasks.values().forEach(prioritizedTasks::remove);
         subtasks.clear();
         epics.clear();
+        touch(TaskType.EPIC);
+        touch(TaskType.SUBTASK);
     }
 
     // геттеры возвращают null, если объекта с искомым id не существует
@@ -174,9 +359,17 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public boolean removeTask(int id) {
-        historyManager.remove(id);
-        prioritizedTasks.remove(tasks.get(id));
-        return tasks.remove(id) != null;
+        Task task = tasks.get(id);
+        if (task == null) {
+            return false;
+        }
+        remember(id);
+        forget(id);
+        prioritizedTasks.remove(task);
+        overlapIndex.remove(id);
+        tasks.remove(id);
+        touch(TaskType.TASK);
+        return true;
     }
 
     @Override
@@ -184,13 +377,18 @@ public class InMemoryTaskManager implements TaskManager {
         if (!epics.containsKey(id)) {
             return false;
         }
-        epics.get(id).getSubtasks().keySet().forEach(s -> {
-            historyManager.remove(s);
+        remember(id);
+        epics.get(id).getSubtasks().forEachKey(s -> {
+            remember(s);
+            forget(s);
             prioritizedTasks.remove(subtasks.get(s));
+            overlapIndex.remove(s);
             subtasks.remove(s);
         });
-        historyManager.remove(id);
+        forget(id);
         epics.remove(id);
+        touch(TaskType.EPIC);
+        touch(TaskType.SUBTASK);
         return true;
     }
 
@@ -200,10 +398,14 @@ public class InMemoryTaskManager implements TaskManager {
         if (subtask == null) {
             return false;
         }
+        remember(id);
+        remember(subtask.getEpicId());
         epics.get(subtask.getEpicId()).removeSubtask(subtask);
-        historyManager.remove(id);
+        forget(id);
         prioritizedTasks.remove(subtasks.get(id));
+        overlapIndex.remove(id);
         subtasks.remove(id);
+        touch(TaskType.SUBTASK);
         return true;
     }
 
@@ -211,7 +413,7 @@ public class InMemoryTaskManager implements TaskManager {
     public ArrayList<Subtask> getSubtasks(int id) {
         Epic epic = epics.get(id);
         return epic == null ? new ArrayList<>()
-            : epic.getSubtasks().keySet().stream().map(subtasks::get)
+            : epic.getSubtasks().keys().mapToObj(subtasks::get)
                 .collect(Collectors.toCollection(ArrayList::new));
     }
 
@@ -220,20 +422,263 @@ public class InMemoryTaskManager implements TaskManager {
         return new ArrayList<>(prioritizedTasks);
     }
 
+    // задачи и подзадачи, начинающиеся в промежутке [from, to), в порядке приоритета; null на месте
+    // границы означает отсутствие ограничения. Выборка идёт по представлению части множества
+    @Override
+    public ArrayList<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Начало промежутка позже его конца.");
+        }
+        NavigableSet<Task> range = prioritizedTasks;
+        if (from != null) {
+            range = range.tailSet(probe(from, Integer.MIN_VALUE), true);
+        }
+        if (to != null) {
+            range = range.headSet(probe(to, Integer.MIN_VALUE), false);
+        }
+        return new ArrayList<>(range);
+    }
+
+    @Override
+    public List<Task> getTasksStartingBetween(LocalDateTime from, LocalDateTime to) {
+        return getPrioritizedTasks(from, to);
+    }
+
+    // задачи и подзадачи идут в двух отображениях по возрастанию id, поэтому они сливаются
+    @Override
+    public List<Task> getTasksByStatus(TaskStatus status) {
+        List<Task> result = new ArrayList<>();
+        Iterator<Task> taskIt = tasks.values().iterator();
+        Iterator<Subtask> subtaskIt = subtasks.values().iterator();
+        Task task = next(taskIt, status);
+        Task subtask = next(subtaskIt, status);
+        while (task != null || subtask != null) {
+            if (subtask == null || (task != null && task.getId() < subtask.getId())) {
+                result.add(task);
+                task = next(taskIt, status);
+            } else {
+                result.add(subtask);
+                subtask = next(subtaskIt, status);
+            }
+        }
+        return result;
+    }
+
+    private static Task next(Iterator<? extends Task> it, TaskStatus status) {
+        while (it.hasNext()) {
+            Task task = it.next();
+            if (task.getStatus() == status) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime from, LocalDateTime to,
+        int limit) {
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Длительность должна быть положительной.");
+        }
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("Начало промежутка должно быть раньше его конца.");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Количество промежутков должно быть положительным.");
+        }
+        return overlapIndex.findFreeSlots(from, to, duration, limit);
+    }
+
+    // пробный элемент для поиска позиции в приоритетном списке
+    private static Task probe(LocalDateTime startTime, int id) {
+        return new Task("", "", id, TaskStatus.NEW, Duration.ZERO, startTime);
+    }
+
+    // курсор - время начала и id последней задачи предыдущей страницы
+    @Override
+    public Page<Task> getPrioritizedTasksPage(int limit, String cursor) {
+        NavigableSet<Task> tail = prioritizedTasks;
+        if (cursor != null) {
+            String[] position = Page.decodeCursor(cursor).split("\\|");
+            try {
+                tail = prioritizedTasks.tailSet(probe(LocalDateTime.parse(position[0]),
+                    Integer.parseInt(position[1])), false);
+            } catch (ArrayIndexOutOfBoundsException | NumberFormatException
+                     | DateTimeException e) {
+                throw new IllegalArgumentException("Некорректный курсор: " + cursor);
+            }
+        }
+        return page(tail.iterator(), limit, task -> task.getStartTime() + "|" + task.getId());
+    }
+
     @Override
     public List<Task> getHistory() {
         return historyManager.getHistory();
     }
 
+    @Override
+    public long getVersion(TaskType type) {
+        return versions.get(type.ordinal());
+    }
+
+    // изменения внутри транзакции сразу видны в менеджере, поэтому следующие операции проверяются
+    // с их учётом; наследники откладывают сохранение до фиксации. Откат восстанавливает исходные
+    // версии изменённых элементов, но не записи истории просмотров удалённых в транзакции элементов
+    @Override
+    public void beginTransaction() {
+        if (beforeImages != null) {
+            throw new IllegalStateException("Транзакция уже открыта.");
+        }
+        beforeImages = new HashMap<>();
+        freeIdBeforeTransaction = freeId;
+    }
+
+    @Override
+    public void commit() {
+        Map<Integer, Task> changes = requireTransaction();
+        beforeImages = null;
+        persistTransaction(changes);
+    }
+
+    @Override
+    public void rollback() {
+        Map<Integer, Task> changes = requireTransaction();
+        beforeImages = null;
+        // сначала из индексов убираются все текущие версии, затем возвращаются исходные, чтобы
+        // промежуточные пересечения не мешали восстановлению
+        changes.forEach((id, before) -> {
+            Task current = tasks.containsKey(id) ? tasks.remove(id)
+                : (subtasks.containsKey(id) ? subtasks.remove(id) : epics.remove(id));
+            if (current != null && !(current instanceof Epic)) {
+                prioritizedTasks.remove(current);
+                overlapIndex.remove(id);
+            }
+            if (before == null) {
+                forget(id);
+            }
+        });
+        // удалённые в транзакции id возвращаются в середину отображений, поэтому исходные версии
+        // добавляются пачками
+        List<Epic> restoredEpics = new ArrayList<>();
+        List<Subtask> restoredSubtasks = new ArrayList<>();
+        List<Task> restoredTasks = new ArrayList<>();
+        changes.values().stream().filter(Objects::nonNull).forEach(before -> {
+            if (before instanceof Epic epic) {
+                restoredEpics.add(epic);
+                return;
+            }
+            if (before instanceof Subtask subtask) {
+                restoredSubtasks.add(subtask);
+            } else {
+                restoredTasks.add(before);
+            }
+            prioritizedTasks.add(before);
+            overlapIndex.add(before);
+        });
+        epics.putAll(restoredEpics, Task::getId);
+        subtasks.putAll(restoredSubtasks, Task::getId);
+        tasks.putAll(restoredTasks, Task::getId);
+        freeId = freeIdBeforeTransaction;
+        for (TaskType type : TaskType.values()) {
+            touch(type);
+        }
+    }
+
+    @Override
+    public boolean isInTransaction() {
+        return beforeImages != null;
+    }
+
+    // вызывается при фиксации транзакции; changes - изменённые в ней id с исходными версиями
+    // элементов. Наследники сохраняют все изменения за одну запись
+    protected void persistTransaction(Map<Integer, Task> changes) {
+    }
+
+    private Map<Integer, Task> requireTransaction() {
+        if (beforeImages == null) {
+            throw new IllegalStateException("Транзакция не открыта.");
+        }
+        return beforeImages;
+    }
+
+    // запоминает исходную версию элемента при первом изменении в транзакции; эпики меняются на
+    // месте, поэтому запоминается их копия
+    private void remember(int id) {
+        if (beforeImages == null || beforeImages.containsKey(id)) {
+            return;
+        }
+        Task current = tasks.containsKey(id) ? tasks.get(id)
+            : (subtasks.containsKey(id) ? subtasks.get(id) : epics.get(id));
+        if (current instanceof Epic epic) {
+            try {
+                current = epic.clone();
+            } catch (CloneNotSupportedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        beforeImages.put(id, current);
+    }
+
+    private void touch(TaskType type) {
+        versions.incrementAndGet(type.ordinal());
+        if (type == TaskType.SUBTASK) {
+            versions.incrementAndGet(TaskType.EPIC.ordinal());
+        }
+    }
+
+    // пакет сортируется по началу (при равном начале - по убыванию конца) и проходится один раз:
+    // элемент пересекается с более ранним, только если пересекается с тем из них, что кончается
+    // позже всех, а с более поздним - только если пересекается со следующим. Затем каждый элемент
+    // проверяется по индексу уже добавленных. Сообщается первый по порядку пакета конфликтующий
+    private void checkBatchOverlap(List<? extends Task> batch, String errorMessage) {
+        Integer[] order = new Integer[batch.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing((Integer i) -> batch.get(i).getStartTime())
+            .thenComparing(i -> batch.get(i).getEndTime(), Comparator.reverseOrder()));
+        int conflict = Integer.MAX_VALUE;
+        Task conflictingTask = null;
+        Task latestEnding = null;
+        for (int k = 0; k < order.length; k++) {
+            Task task = batch.get(order[k]);
+            boolean overlaps = latestEnding != null && task.overlaps(latestEnding);
+            if (k + 1 < order.length && task.overlaps(batch.get(order[k + 1]))) {
+                overlaps = true;
+            }
+            if (overlaps && order[k] < conflict) {
+                conflict = order[k];
+                conflictingTask = null;
+            }
+            if (latestEnding == null || task.getEndTime().isAfter(latestEnding.getEndTime())) {
+                latestEnding = task;
+            }
+        }
+        for (int i = 0; i < Integer.min(conflict, batch.size()); i++) {
+            Optional<Task> overlapping = overlapIndex.findOverlap(batch.get(i));
+            if (overlapping.isPresent()) {
+                conflict = i;
+                conflictingTask = overlapping.get();
+                break;
+            }
+        }
+        if (conflict == Integer.MAX_VALUE) {
+            return;
+        }
+        throw new BulkInsertException(conflictingTask == null
+            ? String.format("%s #%d пакета: пересечение по срокам выполнения с другим элементом "
+                + "пакета!", errorMessage, conflict)
+            : String.format("%s #%d пакета: пересечение по срокам выполнения с %s #%08d!",
+                errorMessage, conflict, conflictingTask.getClass() == Task.class ? "задачей"
+                    : "подзадачей", conflictingTask.getId()), conflict);
+    }
+
     private void checkOverlap(Task task, String errorMessage) {
-        Optional<Task> overlappingTask = prioritizedTasks.stream().filter(task::overlaps)
-            .filter(t -> !task.equals(t))
-            .findFirst();
-        if (overlappingTask.isPresent()) {
+        overlapIndex.findOverlap(task).ifPresent(overlappingTask -> {
             throw new TaskOverlapException(
                 String.format("%s: пересечение по срокам выполнения с %s #%08d!", errorMessage,
-                    overlappingTask.get().getClass() == Task.class ? "задачей" : "подзадачей",
-                    overlappingTask.get().getId()));
-        }
+                    overlappingTask.getClass() == Task.class ? "задачей" : "подзадачей",
+                    overlappingTask.getId()));
+        });
     }
 }
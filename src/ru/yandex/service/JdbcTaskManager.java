@@ -0,0 +1,439 @@
+package ru.yandex.service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import ru.yandex.exceptions.ManagerLoadException;
+import ru.yandex.exceptions.ManagerSaveException;
+import ru.yandex.model.Epic;
+import ru.yandex.model.Subtask;
+import ru.yandex.model.Task;
+import ru.yandex.model.TaskStatus;
+import ru.yandex.model.TaskType;
+
+// менеджер, хранящий задачи во встроенной базе данных через JDBC (например, H2 или SQLite).
+// Состояние целиком держится в памяти, а каждое изменение записывается в базу одной транзакцией
+public class JdbcTaskManager extends InMemoryTaskManager implements AutoCloseable {
+
+    private static final String[] SCHEMA = {
+        "CREATE TABLE IF NOT EXISTS tasks (id INT PRIMARY KEY, type VARCHAR(16) NOT NULL, "
+            + "name VARCHAR(65535) NOT NULL, description VARCHAR(65535) NOT NULL, "
+            + "status VARCHAR(16) NOT NULL, duration_seconds BIGINT, duration_nanos INT, "
+            + "start_time TIMESTAMP(9), end_time TIMESTAMP(9), epic_id INT)",
+        "CREATE INDEX IF NOT EXISTS tasks_status_idx ON tasks (status)",
+        "CREATE INDEX IF NOT EXISTS tasks_start_time_idx ON tasks (start_time)",
+        "CREATE INDEX IF NOT EXISTS tasks_epic_id_idx ON tasks (epic_id)"};
+    // у INSERT и UPDATE одинаковый порядок параметров, id - последний
+    private static final String INSERT = "INSERT INTO tasks (type, name, description, status, "
+        + "duration_seconds, duration_nanos, start_time, end_time, epic_id, id) "
+        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE = "UPDATE tasks SET type = ?, name = ?, description = ?, "
+        + "status = ?, duration_seconds = ?, duration_nanos = ?, start_time = ?, end_time = ?, "
+        + "epic_id = ? WHERE id = ?";
+    private static final String SELECT_ALL = "SELECT id, type, name, description, status, "
+        + "duration_seconds, duration_nanos, start_time, epic_id FROM tasks ORDER BY id";
+    private final Connection connection;
+    // запросы записи подготавливаются один раз и переиспользуются
+    private final PreparedStatement insert;
+    private final PreparedStatement update;
+    // удаления и запросы отбора по тексту SQL; их немного (по одному на сочетание условий)
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+    public JdbcTaskManager(String url) {
+        this(connect(url));
+    }
+
+    public JdbcTaskManager(Connection connection) {
+        this(connection, Managers.getDefaultHistory());
+    }
+
+    public JdbcTaskManager(Connection connection, HistoryManager historyManager) {
+        super(historyManager);
+        this.connection = connection;
+        try {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : SCHEMA) {
+                    statement.execute(sql);
+                }
+            }
+            connection.commit();
+            insert = connection.prepareStatement(INSERT);
+            update = connection.prepareStatement(UPDATE);
+        } catch (SQLException e) {
+            throw new ManagerLoadException("Не удалось подготовить базу данных.");
+        }
+        load();
+    }
+
+    private static Connection connect(String url) {
+        try {
+            return DriverManager.getConnection(url);
+        } catch (SQLException e) {
+            throw new ManagerLoadException("Не удалось подключиться к базе данных.");
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new ManagerSaveException("Ошибка при закрытии базы данных.");
+        }
+    }
+
+    // отбор выполняется по индексу в базе, а объекты берутся из памяти. В открытой транзакции
+    // база ещё не содержит её изменений, поэтому отбор идёт по памяти
+    @Override
+    public List<Task> getTasksByStatus(TaskStatus status) {
+        if (isInTransaction()) {
+            return super.getTasksByStatus(status);
+        }
+        return queryIds("SELECT id FROM tasks WHERE type <> ? AND status = ? ORDER BY id",
+            statement -> statement.setString(2, status.toString()));
+    }
+
+    // незаданная граница не попадает в условие, чтобы запрос по-прежнему шёл по индексу
+    @Override
+    public List<Task> getTasksStartingBetween(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Начало промежутка позже его конца.");
+        }
+        if (isInTransaction()) {
+            return super.getTasksStartingBetween(from, to);
+        }
+        String sql = "SELECT id FROM tasks WHERE type <> ?" + (from == null ? ""
+            : " AND start_time >= ?") + (to == null ? "" : " AND start_time < ?")
+            + " ORDER BY start_time, id";
+        return queryIds(sql, statement -> {
+            int index = 2;
+            if (from != null) {
+                statement.setObject(index++, from);
+            }
+            if (to != null) {
+                statement.setObject(index, to);
+            }
+        });
+    }
+
+    // первый параметр запроса - исключаемый тип EPIC
+    private List<Task> queryIds(String sql, StatementBinder binder) {
+        List<Task> result = new ArrayList<>();
+        try {
+            PreparedStatement statement = prepared(sql);
+            statement.setString(1, TaskType.EPIC.toString());
+            binder.bind(statement);
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    int id = rows.getInt(1);
+                    result.add(tasks.containsKey(id) ? tasks.get(id) : subtasks.get(id));
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new ManagerLoadException("Ошибка при чтении данных из базы.");
+        }
+        return result;
+    }
+
+    private void load() {
+        List<Task> loaded = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+            ResultSet rows = statement.executeQuery(SELECT_ALL)) {
+            while (rows.next()) {
+                loaded.add(fromRow(rows));
+            }
+            connection.commit();
+        } catch (SQLException | IllegalArgumentException e) {
+            throw new ManagerLoadException("Ошибка при чтении данных из базы.");
+        }
+        loaded.stream().filter(task -> task instanceof Epic)
+            .forEach(task -> epics.put(task.getId(), (Epic) task));
+        for (Task task : loaded) {
+            if (task instanceof Subtask subtask) {
+                Epic epic = epics.get(subtask.getEpicId());
+                if (epic == null) {
+                    throw new ManagerLoadException("Подзадача ссылается на несуществующий эпик.");
+                }
+                subtasks.put(subtask.getId(), subtask);
+                epic.addSubtask(subtask);
+            } else if (!(task instanceof Epic)) {
+                tasks.put(task.getId(), task);
+            } else {
+                continue;
+            }
+            prioritizedTasks.add(task);
+            overlapIndex.add(task);
+        }
+        loaded.forEach(task -> freeId = Integer.max(task.getId() + 1, freeId));
+    }
+
+    private static Task fromRow(ResultSet rows) throws SQLException {
+        int id = rows.getInt("id");
+        TaskType type = TaskType.valueOf(rows.getString("type"));
+        String name = rows.getString("name");
+        String description = rows.getString("description");
+        if (type == TaskType.EPIC) {
+            return new Epic(name, description, id);
+        }
+        TaskStatus status = TaskStatus.valueOf(rows.getString("status"));
+        Duration duration = Duration.ofSeconds(rows.getLong("duration_seconds"),
+            rows.getInt("duration_nanos"));
+        LocalDateTime startTime = rows.getObject("start_time", LocalDateTime.class);
+        return type == TaskType.SUBTASK ? new Subtask(name, description, id, status,
+            rows.getInt("epic_id"), duration, startTime)
+            : new Task(name, description, id, status, duration, startTime);
+    }
+
+    private static void bind(PreparedStatement statement, Task task) throws SQLException {
+        boolean isEpic = task instanceof Epic;
+        TaskType type = isEpic ? TaskType.EPIC
+            : (task instanceof Subtask ? TaskType.SUBTASK : TaskType.TASK);
+        statement.setString(1, type.toString());
+        statement.setString(2, task.getName());
+        statement.setString(3, task.getDescription());
+        statement.setString(4, task.getStatus().toString());
+        if (isEpic) {
+            // время и длительность эпика вычисляются по подзадачам и не хранятся
+            statement.setNull(5, Types.BIGINT);
+            statement.setNull(6, Types.INTEGER);
+            statement.setNull(7, Types.TIMESTAMP);
+            statement.setNull(8, Types.TIMESTAMP);
+        } else {
+            statement.setLong(5, task.getDuration().getSeconds());
+            statement.setInt(6, task.getDuration().getNano());
+            statement.setObject(7, task.getStartTime());
+            statement.setObject(8, task.getEndTime());
+        }
+        if (task instanceof Subtask subtask) {
+            statement.setInt(9, subtask.getEpicId());
+        } else {
+            statement.setNull(9, Types.INTEGER);
+        }
+        statement.setInt(10, task.getId());
+    }
+
+    // все изменения транзакции менеджера записываются одной транзакцией базы: удаления пакетом,
+    // затем текущие версии изменённых элементов
+    @Override
+    protected void persistTransaction(Map<Integer, Task> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        execute(() -> {
+            PreparedStatement delete = prepared("DELETE FROM tasks WHERE id = ?");
+            for (int id : changes.keySet()) {
+                if (!tasks.containsKey(id) && !subtasks.containsKey(id) && !epics.containsKey(id)) {
+                    delete.setInt(1, id);
+                    delete.addBatch();
+                }
+            }
+            delete.executeBatch();
+            for (int id : changes.keySet()) {
+                Task task = tasks.containsKey(id) ? tasks.get(id)
+                    : (subtasks.containsKey(id) ? subtasks.get(id) : epics.get(id));
+                if (task != null) {
+                    upsert(task);
+                }
+            }
+        });
+    }
+
+    // переносимая замена MERGE/UPSERT: сначала обновление, а если строки нет - вставка
+    private void save(Task task) {
+        if (isInTransaction()) {
+            return;
+        }
+        execute(() -> upsert(task));
+    }
+
+    private void upsert(Task task) throws SQLException {
+        bind(update, task);
+        if (update.executeUpdate() == 0) {
+            bind(insert, task);
+            insert.executeUpdate();
+        }
+    }
+
+    // новые строки пакета вставляются одним пакетным запросом в одной транзакции
+    private void saveAll(List<? extends Task> batch) {
+        if (batch.isEmpty() || isInTransaction()) {
+            return;
+        }
+        execute(() -> {
+            for (Task task : batch) {
+                bind(insert, task);
+                insert.addBatch();
+            }
+            try {
+                insert.executeBatch();
+            } finally {
+                insert.clearBatch();
+            }
+        });
+    }
+
+    private void saveRemoval(String sql, StatementBinder binder) {
+        if (isInTransaction()) {
+            return;
+        }
+        execute(() -> {
+            PreparedStatement statement = prepared(sql);
+            binder.bind(statement);
+            statement.executeUpdate();
+        });
+    }
+
+    // подготовленный запрос по тексту SQL; соединение одно, поэтому запрос готовится один раз
+    private PreparedStatement prepared(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = connection.prepareStatement(sql);
+            statements.put(sql, statement);
+        }
+        statement.clearParameters();
+        return statement;
+    }
+
+    private void execute(SqlAction action) {
+        try {
+            action.run();
+            connection.commit();
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException ignored) {
+                // исходная ошибка важнее ошибки отката
+            }
+            throw new ManagerSaveException("Ошибка при сохранении данных в базу.");
+        }
+    }
+
+    @Override
+    public int addTask(Task task) {
+        int id = super.addTask(task);
+        save(task);
+        return id;
+    }
+
+    @Override
+    public int addEpic(Epic epic) {
+        int id = super.addEpic(epic);
+        save(epic);
+        return id;
+    }
+
+    @Override
+    public int addSubtask(Subtask subtask) {
+        int id = super.addSubtask(subtask);
+        save(subtask);
+        return id;
+    }
+
+    @Override
+    public List<Integer> addTasks(List<? extends Task> batch) {
+        List<Integer> ids = super.addTasks(batch);
+        saveAll(batch);
+        return ids;
+    }
+
+    @Override
+    public List<Integer> addSubtasks(List<? extends Subtask> batch) {
+        List<Integer> ids = super.addSubtasks(batch);
+        saveAll(batch);
+        return ids;
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        super.updateTask(task);
+        save(task);
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        super.updateEpic(epic);
+        save(epics.get(epic.getId()));
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        super.updateSubtask(subtask);
+        save(subtask);
+    }
+
+    @Override
+    public void clearTasks() {
+        super.clearTasks();
+        saveRemoval("DELETE FROM tasks WHERE type = ?",
+            statement -> statement.setString(1, TaskType.TASK.toString()));
+    }
+
+    @Override
+    public void clearEpics() {
+        super.clearEpics();
+        saveRemoval("DELETE FROM tasks WHERE type IN (?, ?)", statement -> {
+            statement.setString(1, TaskType.EPIC.toString());
+            statement.setString(2, TaskType.SUBTASK.toString());
+        });
+    }
+
+    @Override
+    public void clearSubtasks() {
+        super.clearSubtasks();
+        saveRemoval("DELETE FROM tasks WHERE type = ?",
+            statement -> statement.setString(1, TaskType.SUBTASK.toString()));
+    }
+
+    @Override
+    public boolean removeTask(int id) {
+        boolean result = super.removeTask(id);
+        if (result) {
+            saveRemoval("DELETE FROM tasks WHERE id = ?", statement -> statement.setInt(1, id));
+        }
+        return result;
+    }
+
+    // эпик и его подзадачи удаляются одним запросом по индексу epic_id
+    @Override
+    public boolean removeEpic(int id) {
+        boolean result = super.removeEpic(id);
+        if (result) {
+            saveRemoval("DELETE FROM tasks WHERE id = ? OR epic_id = ?", statement -> {
+                statement.setInt(1, id);
+                statement.setInt(2, id);
+            });
+        }
+        return result;
+    }
+
+    @Override
+    public boolean removeSubtask(int id) {
+        boolean result = super.removeSubtask(id);
+        if (result) {
+            saveRemoval("DELETE FROM tasks WHERE id = ?", statement -> statement.setInt(1, id));
+        }
+        return result;
+    }
+
+    private interface SqlAction {
+
+        void run() throws SQLException;
+    }
+
+    private interface StatementBinder {
+
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+}
@@ -0,0 +1,59 @@
+package ru.yandex.service;
+
+// метрики записи журнала на момент запроса
+public class JournalStats {
+
+    private final long batches;
+    private final long records;
+    private final int maxBatchSize;
+    private final int queueDepth;
+    private final long totalFsyncNanos;
+    private final long maxFsyncNanos;
+
+    public JournalStats(long batches, long records, int maxBatchSize, int queueDepth,
+        long totalFsyncNanos, long maxFsyncNanos) {
+        this.batches = batches;
+        this.records = records;
+        this.maxBatchSize = maxBatchSize;
+        this.queueDepth = queueDepth;
+        this.totalFsyncNanos = totalFsyncNanos;
+        this.maxFsyncNanos = maxFsyncNanos;
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    public double getAverageBatchSize() {
+        return batches == 0 ? 0 : (double) records / batches;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public long getAverageFsyncNanos() {
+        return batches == 0 ? 0 : totalFsyncNanos / batches;
+    }
+
+    public long getMaxFsyncNanos() {
+        return maxFsyncNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "Пачек: %d, записей: %d, средний размер пачки: %.1f, максимальный: %d, очередь: %d, "
+                + "fsync в среднем: %d мкс, максимум: %d мкс", batches, records,
+            getAverageBatchSize(), maxBatchSize, queueDepth, getAverageFsyncNanos() / 1000,
+            maxFsyncNanos / 1000);
+    }
+}
@@ -1,12 +1,24 @@
 package ru.yandex.service;
 
+import java.nio.file.Path;
+
 public class Managers {
 
     public static TaskManager getDefault() {
         return new InMemoryTaskManager();
     }
 
+    // хранилище со слотами фиксированного размера, в котором изменения пишутся на месте
+    public static TaskManager getRecordFileBacked(Path file) {
+        return new RecordFileTaskManager(file);
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
+
+    // история с ограниченной ёмкостью и вытеснением самых давних просмотров
+    public static HistoryManager getDefaultHistory(int capacity) {
+        return new BoundedHistoryManager(capacity);
+    }
 }
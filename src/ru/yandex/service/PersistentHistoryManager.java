@@ -0,0 +1,257 @@
+package ru.yandex.service;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+import ru.yandex.exceptions.ManagerLoadException;
+import ru.yandex.exceptions.ManagerSaveException;
+import ru.yandex.model.Task;
+
+// история просмотров, сохраняемая в отдельный журнал: каждое изменение дописывается записью
+// VIEW,id или DEL,id через асинхронный журнал, поэтому чтения не ждут диска. Когда журнал
+// разрастается, фоновый поток сжимает его в базовый файл с текущим составом истории.
+// Восстановленные id сопоставляются с задачами вызовом restore после загрузки менеджера
+public class PersistentHistoryManager implements HistoryManager, AutoCloseable {
+
+    private static final String VIEW_RECORD = "VIEW", REMOVE_RECORD = "DEL";
+    // суффиксы базового файла и файлов, используемых при компактизации журнала
+    private static final String BASE = ".base", COMPACTING = ".compacting",
+        COMPACTED = ".compacted", BASE_TMP = ".tmp";
+    private static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 50;
+    private static final long DEFAULT_COMPACTION_RECORDS = 10_000;
+    private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "history-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final HistoryManager historyManager;
+    private final TaskJournal journal;
+    private final Path baseFile;
+    private long compactionRecords = DEFAULT_COMPACTION_RECORDS;
+    private Future<?> compaction = CompletableFuture.completedFuture(null);
+    // записи, прочитанные с диска и ещё не применённые вызовом restore
+    private List<String> loaded;
+
+    public PersistentHistoryManager(Path logFile) {
+        this(logFile, Managers.getDefaultHistory());
+    }
+
+    public PersistentHistoryManager(Path logFile, HistoryManager historyManager) {
+        this(historyManager, new TaskJournal(logFile, DurabilityPolicy.ASYNC,
+            DEFAULT_COMMIT_INTERVAL_MILLIS));
+    }
+
+    // журнал может использовать любую политику записи; ASYNC не заставляет чтения ждать диска.
+    // Запись ставится в журнал под блокировкой истории, а сброса на диск поток ждёт уже после неё,
+    // поэтому при GROUP_COMMIT просмотры параллельных потоков сбрасываются одной пачкой
+    public PersistentHistoryManager(HistoryManager historyManager, TaskJournal journal) {
+        this.historyManager = historyManager;
+        this.journal = journal;
+        this.baseFile = siblingOf(journal.getFile(), BASE);
+        recoverCompaction();
+        loaded = new ArrayList<>(readBase());
+        Path compacting = siblingOf(journal.getFile(), COMPACTING);
+        if (Files.exists(compacting)) {
+            // прерванная компактизация: сегмент переносится в базовый файл без изменений
+            loaded.addAll(TaskJournal.readRecords(compacting));
+            finishCompaction(List.copyOf(loaded));
+        }
+        loaded.addAll(journal.readRecords());
+    }
+
+    public Path getLogFile() {
+        return journal.getFile();
+    }
+
+    // 0 отключает компактизацию
+    public void setCompactionThreshold(long maxRecords) {
+        this.compactionRecords = maxRecords;
+    }
+
+    // применяет прочитанные с диска записи; lookup возвращает текущую версию задачи по id или
+    // null, если задачи больше нет
+    public synchronized void restore(IntFunction<? extends Task> lookup) {
+        for (String record : loaded) {
+            String[] split = record.split(",");
+            if (split.length != 2) {
+                throw new ManagerLoadException("Некорректный формат журнала истории.");
+            }
+            int id;
+            try {
+                id = Integer.parseInt(split[1]);
+            } catch (NumberFormatException e) {
+                throw new ManagerLoadException("Некорректный формат журнала истории.");
+            }
+            switch (split[0]) {
+                case VIEW_RECORD -> {
+                    Task task = lookup.apply(id);
+                    if (task != null) {
+                        historyManager.add(task);
+                    }
+                }
+                case REMOVE_RECORD -> historyManager.remove(id);
+                default -> throw new ManagerLoadException("Некорректный формат журнала истории.");
+            }
+        }
+        loaded = List.of();
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        long seq;
+        synchronized (this) {
+            historyManager.add(task);
+            seq = journal.appendDeferred(VIEW_RECORD + "," + task.getId());
+            compactIfNeeded();
+        }
+        journal.awaitCommit(seq);
+    }
+
+    @Override
+    public void remove(int id) {
+        long seq;
+        synchronized (this) {
+            historyManager.remove(id);
+            seq = journal.appendDeferred(REMOVE_RECORD + "," + id);
+            compactIfNeeded();
+        }
+        journal.awaitCommit(seq);
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    public synchronized void compact() {
+        if (!compaction.isDone() || Files.exists(siblingOf(journal.getFile(), COMPACTING))) {
+            return;
+        }
+        compaction = COMPACTOR.submit(this::runCompaction);
+    }
+
+    public void awaitCompaction() {
+        Future<?> current;
+        synchronized (this) {
+            current = compaction;
+        }
+        try {
+            current.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new ManagerSaveException("Ошибка при компактизации журнала истории.");
+        }
+    }
+
+    // дожидается записи на диск всех изменений истории
+    public void flush() {
+        journal.flush();
+    }
+
+    @Override
+    public void close() {
+        awaitCompaction();
+        journal.close();
+    }
+
+    private void compactIfNeeded() {
+        if (compactionRecords > 0 && journal.getRecordCount() >= compactionRecords) {
+            compact();
+        }
+    }
+
+    // журнал ротируется раньше, чем снимается состав истории: просмотры, попавшие между этими
+    // шагами, оказываются и в снимке, и в новом журнале, а повторное применение просмотра или
+    // удаления поверх снимка даёт тот же порядок истории
+    private void runCompaction() {
+        journal.rotate(siblingOf(journal.getFile(), COMPACTING));
+        List<String> records;
+        synchronized (this) {
+            records = historyManager.getHistory().stream()
+                .map(task -> VIEW_RECORD + "," + task.getId()).toList();
+        }
+        finishCompaction(records);
+    }
+
+    // порядок шагов гарантирует, что сегмент журнала никогда не проигрывается поверх базового
+    // файла, который его уже учитывает
+    private void finishCompaction(List<String> records) {
+        Path compacting = siblingOf(journal.getFile(), COMPACTING);
+        Path compacted = siblingOf(journal.getFile(), COMPACTED);
+        Path tmp = siblingOf(baseFile, BASE_TMP);
+        try {
+            writeBase(records, tmp);
+            Files.move(compacting, compacted, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(tmp, baseFile, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(compacted);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при компактизации журнала истории.");
+        }
+    }
+
+    // если базовый файл уже записан и сегмент помечен как учтённый, завершаем замену базового
+    // файла; недописанный временный файл удаляется
+    private void recoverCompaction() {
+        Path compacted = siblingOf(journal.getFile(), COMPACTED);
+        Path tmp = siblingOf(baseFile, BASE_TMP);
+        try {
+            if (Files.exists(compacted)) {
+                if (Files.exists(tmp)) {
+                    Files.move(tmp, baseFile, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                }
+                Files.delete(compacted);
+            }
+            Files.deleteIfExists(tmp);
+        } catch (IOException e) {
+            throw new ManagerLoadException("Ошибка при восстановлении после компактизации.");
+        }
+    }
+
+    private List<String> readBase() {
+        if (!Files.exists(baseFile)) {
+            return List.of();
+        }
+        return TaskJournal.readRecords(baseFile);
+    }
+
+    private static void writeBase(List<String> records, Path file) throws IOException {
+        try (FileOutputStream output = new FileOutputStream(file.toFile());
+            PrintStream print = new PrintStream(new BufferedOutputStream(output), false,
+                StandardCharsets.UTF_8)) {
+            records.forEach(record -> print.print(record + "\n"));
+            print.flush();
+            if (print.checkError()) {
+                throw new IOException("Ошибка при записи журнала истории.");
+            }
+            output.getFD().sync();
+        }
+    }
+
+    private static Path siblingOf(Path file, String suffix) {
+        return file.resolveSibling(file.getFileName() + suffix);
+    }
+}
@@ -0,0 +1,247 @@
+package ru.yandex.service;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import ru.yandex.exceptions.ManagerLoadException;
+import ru.yandex.model.Epic;
+import ru.yandex.model.Subtask;
+import ru.yandex.model.Task;
+
+// менеджер, хранящий каждую задачу в отдельном слоте файла записей: изменение одной задачи
+// перезаписывает только её слот
+public class RecordFileTaskManager extends InMemoryTaskManager implements AutoCloseable {
+
+    private final TaskRecordFile recordFile;
+
+    public RecordFileTaskManager(Path file) {
+        this(file, Managers.getDefaultHistory());
+    }
+
+    public RecordFileTaskManager(Path file, HistoryManager historyManager) {
+        super(historyManager);
+        this.recordFile = new TaskRecordFile(file);
+        load();
+    }
+
+    public static RecordFileTaskManager loadFromFile(File file) {
+        return new RecordFileTaskManager(file.toPath());
+    }
+
+    public int getSlotCount() {
+        return recordFile.getSlotCount();
+    }
+
+    public int getFreeSlotCount() {
+        return recordFile.getFreeSlotCount();
+    }
+
+    @Override
+    public void close() {
+        recordFile.close();
+    }
+
+    // слоты идут в произвольном порядке, поэтому эпики восстанавливаются раньше подзадач, а
+    // записи сортируются по id, чтобы каждая дописывалась в конец отображения
+    private void load() {
+        List<Task> loaded = recordFile.getLoaded();
+        loaded.sort(Comparator.comparingInt(Task::getId));
+        loaded.stream().filter(task -> task instanceof Epic)
+            .forEach(task -> epics.put(task.getId(), (Epic) task));
+        for (Task task : loaded) {
+            if (task instanceof Subtask subtask) {
+                Epic epic = epics.get(subtask.getEpicId());
+                if (epic == null) {
+                    throw new ManagerLoadException("Некорректный формат файла записей.");
+                }
+                subtasks.put(subtask.getId(), subtask);
+                epic.addSubtask(subtask);
+            } else if (!(task instanceof Epic)) {
+                tasks.put(task.getId(), task);
+            } else {
+                continue;
+            }
+            prioritizedTasks.add(task);
+            overlapIndex.add(task);
+        }
+        loaded.forEach(task -> freeId = Integer.max(task.getId() + 1, freeId));
+        loaded.clear();
+    }
+
+    private void save(Task task) {
+        if (isInTransaction()) {
+            return;
+        }
+        recordFile.write(task);
+        recordFile.sync();
+    }
+
+    private void saveAll(List<? extends Task> batch) {
+        if (isInTransaction()) {
+            return;
+        }
+        batch.forEach(recordFile::write);
+        recordFile.sync();
+    }
+
+    // изменения транзакции записываются тремя фазами с барьером сброса на диск между ними:
+    // удаление подзадач, затем удаление и запись эпиков и задач, затем запись подзадач. Без
+    // барьера диск может сохранить слоты в любом порядке, и после сбоя подзадача осталась бы
+    // без эпика, а загрузка файла завершилась бы ошибкой
+    @Override
+    protected void persistTransaction(Map<Integer, Task> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        List<Integer> removedSubtasks = changes.entrySet().stream()
+            .filter(change -> change.getValue() instanceof Subtask)
+            .map(Map.Entry::getKey).filter(id -> !subtasks.containsKey(id)).toList();
+        List<Integer> removedOthers = changes.entrySet().stream()
+            .filter(change -> change.getValue() != null && !(change.getValue() instanceof Subtask))
+            .map(Map.Entry::getKey).filter(id -> !tasks.containsKey(id) && !epics.containsKey(id))
+            .toList();
+        List<Task> written = new ArrayList<>();
+        changes.keySet().stream().filter(epics::containsKey).map(epics::get).forEach(written::add);
+        changes.keySet().stream().filter(tasks::containsKey).map(tasks::get).forEach(written::add);
+        List<Subtask> writtenSubtasks = changes.keySet().stream().filter(subtasks::containsKey)
+            .map(subtasks::get).toList();
+
+        // барьер нужен, только если по обе стороны от него что-то пишется
+        boolean middle = !removedOthers.isEmpty() || !written.isEmpty();
+        removedSubtasks.forEach(recordFile::remove);
+        if (!removedSubtasks.isEmpty() && middle) {
+            recordFile.sync();
+        }
+        removedOthers.forEach(recordFile::remove);
+        written.forEach(recordFile::write);
+        if (middle && !writtenSubtasks.isEmpty()) {
+            recordFile.sync();
+        }
+        writtenSubtasks.forEach(recordFile::write);
+        recordFile.sync();
+    }
+
+    // подзадачи удаляются из файла и сбрасываются на диск раньше, чем удаляются эпики и задачи,
+    // чтобы после сбоя не осталось подзадач без эпика
+    private void saveRemoval(List<Integer> subtaskIds, List<Integer> ids) {
+        if (isInTransaction()) {
+            return;
+        }
+        subtaskIds.forEach(recordFile::remove);
+        if (!subtaskIds.isEmpty() && !ids.isEmpty()) {
+            recordFile.sync();
+        }
+        ids.forEach(recordFile::remove);
+        recordFile.sync();
+    }
+
+    @Override
+    public int addTask(Task task) {
+        int id = super.addTask(task);
+        save(task);
+        return id;
+    }
+
+    @Override
+    public int addEpic(Epic epic) {
+        int id = super.addEpic(epic);
+        save(epic);
+        return id;
+    }
+
+    @Override
+    public int addSubtask(Subtask subtask) {
+        int id = super.addSubtask(subtask);
+        save(subtask);
+        return id;
+    }
+
+    // все слоты пакета записываются до одного общего сброса на диск
+    @Override
+    public List<Integer> addTasks(List<? extends Task> batch) {
+        List<Integer> ids = super.addTasks(batch);
+        saveAll(batch);
+        return ids;
+    }
+
+    @Override
+    public List<Integer> addSubtasks(List<? extends Subtask> batch) {
+        List<Integer> ids = super.addSubtasks(batch);
+        saveAll(batch);
+        return ids;
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        super.updateTask(task);
+        save(task);
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        super.updateEpic(epic);
+        save(epics.get(epic.getId()));
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        super.updateSubtask(subtask);
+        save(subtask);
+    }
+
+    @Override
+    public void clearTasks() {
+        List<Integer> ids = tasks.keys().boxed().toList();
+        super.clearTasks();
+        saveRemoval(List.of(), ids);
+    }
+
+    @Override
+    public void clearEpics() {
+        List<Integer> subtaskIds = subtasks.keys().boxed().toList();
+        List<Integer> ids = epics.keys().boxed().toList();
+        super.clearEpics();
+        saveRemoval(subtaskIds, ids);
+    }
+
+    @Override
+    public void clearSubtasks() {
+        List<Integer> ids = subtasks.keys().boxed().toList();
+        super.clearSubtasks();
+        saveRemoval(ids, List.of());
+    }
+
+    @Override
+    public boolean removeTask(int id) {
+        boolean result = super.removeTask(id);
+        if (result) {
+            saveRemoval(List.of(), List.of(id));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean removeEpic(int id) {
+        List<Integer> subtaskIds = new ArrayList<>();
+        if (epics.containsKey(id)) {
+            epics.get(id).getSubtasks().forEachKey(subtaskIds::add);
+        }
+        boolean result = super.removeEpic(id);
+        if (result) {
+            saveRemoval(subtaskIds, List.of(id));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean removeSubtask(int id) {
+        boolean result = super.removeSubtask(id);
+        if (result) {
+            saveRemoval(List.of(id), List.of());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,199 @@
+package ru.yandex.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import ru.yandex.model.Task;
+
+// отдельная история для каждой клиентской сессии. Сессия текущего потока задаётся через enter и
+// leave (например, фильтром HTTP-сервера); вызовы вне сессии работают с общей историей. После
+// start сессии, к которым не обращались дольше idleTimeout, периодически удаляются
+public class SessionHistoryManager implements HistoryManager, AutoCloseable {
+
+    private static final int MIN_PRUNE_THRESHOLD = 64;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    // обратный индекс: для каждого id - сессии, в историю которых задача попадала. Удаление
+    // задачи обходит только их, а не все сессии
+    private final Map<Integer, Set<Session>> holders = new ConcurrentHashMap<>();
+    private final ThreadLocal<Session> current = new ThreadLocal<>();
+    private final Session defaultSession;
+    private final Supplier<? extends HistoryManager> factory;
+    private final Duration idleTimeout;
+    private final Clock clock;
+    private ScheduledExecutorService evictor;
+
+    // у каждой сессии своя ограниченная история ёмкостью capacity
+    public SessionHistoryManager(int capacity, Duration idleTimeout) {
+        this(() -> new BoundedHistoryManager(capacity), idleTimeout, Clock.systemUTC());
+    }
+
+    public SessionHistoryManager(Supplier<? extends HistoryManager> factory, Duration idleTimeout,
+        Clock clock) {
+        if (idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("Время простоя сессии должно быть положительным.");
+        }
+        this.factory = factory;
+        this.idleTimeout = idleTimeout;
+        this.clock = clock;
+        defaultSession = new Session(factory.get(), clock.millis());
+    }
+
+    // запускает периодическое удаление простаивающих сессий; повторный вызов ничего не делает
+    public synchronized SessionHistoryManager start() {
+        if (evictor == null) {
+            evictor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon()
+                .name("session-evictor").factory());
+            long period = idleTimeout.toMillis();
+            evictor.scheduleAtFixedRate(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+        }
+        return this;
+    }
+
+    // последующие вызовы в этом потоке относятся к сессии sessionId до вызова leave
+    public void enter(String sessionId) {
+        long now = clock.millis();
+        Session session = sessions.computeIfAbsent(sessionId,
+            id -> new Session(factory.get(), now));
+        session.lastAccess = now;
+        current.set(session);
+    }
+
+    public void leave() {
+        current.remove();
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    // возвращает число удалённых сессий. Сессия, удалённая во время запроса, дорабатывает его
+    // со своей историей, а следующий запрос начнёт новую
+    public int evictIdle() {
+        long deadline = clock.millis() - idleTimeout.toMillis();
+        int evicted = 0;
+        for (Iterator<Session> it = sessions.values().iterator(); it.hasNext(); ) {
+            Session session = it.next();
+            if (session.lastAccess < deadline) {
+                it.remove();
+                synchronized (session) {
+                    session.evicted = true;
+                    unindex(session, session.ids);
+                    session.ids.clear();
+                }
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        Session session = session();
+        synchronized (session) {
+            session.history.add(task);
+            // удалённая сессия дорабатывает текущий запрос, но в индекс больше не попадает
+            if (!session.evicted && session.ids.add(task.getId())) {
+                // сессия добавляется внутри операции над отображением: иначе unindex другого
+                // потока мог бы опустошить и выбросить набор до того, как сессия в него попадёт
+                holders.compute(task.getId(), (id, owners) -> {
+                    Set<Session> result = owners == null ? ConcurrentHashMap.newKeySet() : owners;
+                    result.add(session);
+                    return result;
+                });
+                if (session.ids.size() > session.pruneAt) {
+                    prune(session);
+                }
+            }
+        }
+    }
+
+    // удалённая задача исчезает из историй всех сессий, в которые попадала
+    @Override
+    public void remove(int id) {
+        Set<Session> owners = holders.remove(id);
+        if (owners == null) {
+            return;
+        }
+        for (Session session : owners) {
+            synchronized (session) {
+                session.history.remove(id);
+                session.ids.remove(id);
+            }
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        Session session = session();
+        synchronized (session) {
+            return session.history.getHistory();
+        }
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    private Session session() {
+        Session session = current.get();
+        return session != null ? session : defaultSession;
+    }
+
+    // ограниченная история вытесняет старые просмотры сама, и их id остаются в индексе. Когда
+    // таких id набирается столько же, сколько живых, индекс сессии сверяется с её историей;
+    // вызывается под блокировкой сессии
+    private void prune(Session session) {
+        Set<Integer> live = new HashSet<>();
+        session.history.getHistory().forEach(task -> live.add(task.getId()));
+        List<Integer> stale = session.ids.stream().filter(id -> !live.contains(id)).toList();
+        unindex(session, stale);
+        stale.forEach(session.ids::remove);
+        session.pruneAt = Integer.max(MIN_PRUNE_THRESHOLD, 2 * session.ids.size());
+    }
+
+    private void unindex(Session session, Collection<Integer> ids) {
+        for (int id : ids) {
+            holders.computeIfPresent(id, (key, owners) -> {
+                owners.remove(session);
+                return owners.isEmpty() ? null : owners;
+            });
+        }
+    }
+
+    private static class Session {
+
+        private final HistoryManager history;
+        // id задач, под которыми сессия записана в обратном индексе; изменяется под блокировкой
+        // сессии
+        private final Set<Integer> ids = new HashSet<>();
+        private int pruneAt = MIN_PRUNE_THRESHOLD;
+        private boolean evicted;
+        private volatile long lastAccess;
+
+        Session(HistoryManager history, long lastAccess) {
+            this.history = history;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
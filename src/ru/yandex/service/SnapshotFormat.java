@@ -0,0 +1,6 @@
+package ru.yandex.service;
+
+// формат файла сохранения: текстовый CSV или двоичный снимок (см. BinarySnapshot)
+public enum SnapshotFormat {
+    CSV, BINARY
+}
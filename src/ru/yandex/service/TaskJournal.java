@@ -0,0 +1,383 @@
+package ru.yandex.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import ru.yandex.exceptions.ManagerLoadException;
+import ru.yandex.exceptions.ManagerSaveException;
+
+// журнал изменений: каждая запись - одна строка, дописываемая в конец файла. В режимах
+// GROUP_COMMIT и ASYNC записи копятся в очереди и сбрасываются на диск отдельным потоком пачками,
+// по одному fsync на пачку. Пачка из нескольких записей набирается, только если записи добавляют
+// несколько потоков и ожидание сброса идёт вне их общей блокировки (см. appendDeferred)
+public class TaskJournal implements AutoCloseable {
+
+    private static final char RECORD_SEPARATOR = '\n';
+    private final Path file;
+    private final DurabilityPolicy policy;
+    private final long commitIntervalMillis;
+    // ioLock защищает канал, queueLock - очередь, счётчики и метрики; если нужны обе блокировки,
+    // первой захватывается ioLock
+    private final Object ioLock = new Object();
+    private final Object queueLock = new Object();
+    private final Thread writer;
+    private FileChannel channel;
+    private List<byte[]> queue = new ArrayList<>();
+    private long appendedSeq = 0;
+    private long durableSeq = 0;
+    private long recordCount = 0;
+    private long size;
+    private boolean flushRequested = false;
+    private boolean closed = false;
+    private IOException failure = null;
+    private long batches = 0;
+    private long batchedRecords = 0;
+    private int maxBatchSize = 0;
+    private long totalFsyncNanos = 0;
+    private long maxFsyncNanos = 0;
+
+    public TaskJournal(Path file) {
+        this(file, DurabilityPolicy.SYNC, 0);
+    }
+
+    // commitIntervalMillis - сколько фоновый поток ждёт после первой записи пачки, прежде чем
+    // сбросить её на диск
+    public TaskJournal(Path file, DurabilityPolicy policy, long commitIntervalMillis) {
+        this.file = file;
+        this.policy = policy;
+        this.commitIntervalMillis = commitIntervalMillis;
+        if (!Files.exists(file)) {
+            try {
+                Files.createFile(file);
+            } catch (IOException e) {
+                throw new ManagerSaveException("Не удалось создать файл журнала изменений.");
+            }
+        }
+        try {
+            size = Files.size(file);
+            channel = openChannel();
+        } catch (IOException e) {
+            throw new ManagerLoadException("Ошибка при чтении журнала изменений.");
+        }
+        if (policy == DurabilityPolicy.SYNC) {
+            writer = null;
+        } else {
+            writer = new Thread(this::runWriter, "task-journal-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public DurabilityPolicy getPolicy() {
+        return policy;
+    }
+
+    // количество записей, прочитанных из журнала или добавленных в него этим экземпляром
+    public long getRecordCount() {
+        synchronized (queueLock) {
+            return recordCount;
+        }
+    }
+
+    public long getSize() {
+        synchronized (queueLock) {
+            return size;
+        }
+    }
+
+    public JournalStats getStats() {
+        synchronized (queueLock) {
+            return new JournalStats(batches, batchedRecords, maxBatchSize, queue.size(),
+                totalFsyncNanos, maxFsyncNanos);
+        }
+    }
+
+    public void append(String record) {
+        awaitCommit(appendDeferred(record));
+    }
+
+    // ставит запись в очередь и возвращает её номер, не дожидаясь сброса на диск (при SYNC запись
+    // сбрасывается сразу). Вызывающий, который держит собственную блокировку, отпускает её и только
+    // затем ждёт записи через awaitCommit: так записи разных потоков попадают в одну пачку
+    public long appendDeferred(String record) {
+        byte[] bytes = encode(record);
+        if (policy == DurabilityPolicy.SYNC) {
+            synchronized (ioLock) {
+                long seq = enqueue(bytes);
+                commitPending();
+                return seq;
+            }
+        }
+        return enqueue(bytes);
+    }
+
+    // при GROUP_COMMIT дожидается сброса на диск записи с номером seq; при SYNC запись уже на
+    // диске, а при ASYNC вызывающий не ждёт
+    public void awaitCommit(long seq) {
+        if (policy == DurabilityPolicy.GROUP_COMMIT) {
+            awaitDurable(seq);
+        }
+    }
+
+    // записи пакета ставятся в очередь подряд и при SYNC сбрасываются на диск одним вызовом force
+    public void appendAll(List<String> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        if (policy == DurabilityPolicy.SYNC) {
+            synchronized (ioLock) {
+                records.forEach(record -> enqueue(encode(record)));
+                commitPending();
+            }
+            return;
+        }
+        long seq = 0;
+        for (String record : records) {
+            seq = enqueue(encode(record));
+        }
+        awaitCommit(seq);
+    }
+
+    private static byte[] encode(String record) {
+        return (record + RECORD_SEPARATOR).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // дожидается, пока все добавленные к этому моменту записи окажутся на диске
+    public void flush() {
+        long seq;
+        synchronized (queueLock) {
+            seq = appendedSeq;
+            flushRequested = true;
+            queueLock.notifyAll();
+        }
+        awaitDurable(seq);
+    }
+
+    @Override
+    public void close() {
+        synchronized (queueLock) {
+            if (closed) {
+                return;
+            }
+        }
+        flush();
+        synchronized (queueLock) {
+            closed = true;
+            queueLock.notifyAll();
+        }
+        if (writer != null) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (ioLock) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка при закрытии журнала изменений.");
+            }
+        }
+    }
+
+    // недописанный хвост журнала обрезается, чтобы следующие записи не склеились с ним
+    public List<String> readRecords() {
+        synchronized (ioLock) {
+            try {
+                byte[] content = Files.readAllBytes(file);
+                int length = completeLength(content);
+                if (length < content.length) {
+                    channel.truncate(length);
+                }
+                List<String> records = parse(content, length);
+                synchronized (queueLock) {
+                    size = length;
+                    recordCount = records.size();
+                }
+                return records;
+            } catch (IOException e) {
+                throw new ManagerLoadException("Ошибка при чтении журнала изменений.");
+            }
+        }
+    }
+
+    public static List<String> readRecords(Path file) {
+        try {
+            byte[] content = Files.readAllBytes(file);
+            return parse(content, completeLength(content));
+        } catch (IOException e) {
+            throw new ManagerLoadException("Ошибка при чтении журнала изменений.");
+        }
+    }
+
+    // переносит накопленные записи, включая ещё не сброшенные на диск, в файл segment и начинает
+    // журнал заново
+    public void rotate(Path segment) {
+        synchronized (ioLock) {
+            commitPending();
+            try {
+                channel.close();
+                Files.move(file, segment, StandardCopyOption.ATOMIC_MOVE);
+                Files.createFile(file);
+                channel = openChannel();
+                // переименование и новый файл становятся постоянными только после сброса каталога
+                syncDirectory(file.toAbsolutePath().getParent());
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка при ротации журнала изменений.");
+            }
+            synchronized (queueLock) {
+                recordCount = queue.size();
+                size = queue.stream().mapToLong(bytes -> bytes.length).sum();
+            }
+        }
+    }
+
+    // на системах, где каталог нельзя открыть для чтения (Windows), сброс каталога пропускается:
+    // там метаданные переименования сохраняет сама файловая система
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // сброс каталога не поддерживается
+        }
+    }
+
+    private FileChannel openChannel() throws IOException {
+        return FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // последняя запись без завершающего перевода строки считается недописанной (например, из-за
+    // сбоя во время записи) и отбрасывается
+    private static int completeLength(byte[] content) {
+        int length = content.length;
+        while (length > 0 && content[length - 1] != RECORD_SEPARATOR) {
+            length--;
+        }
+        return length;
+    }
+
+    private static List<String> parse(byte[] content, int length) {
+        String records = new String(content, 0, length, StandardCharsets.UTF_8);
+        return Arrays.stream(records.split(String.valueOf(RECORD_SEPARATOR)))
+            .filter(r -> !r.isEmpty()).toList();
+    }
+
+    private long enqueue(byte[] bytes) {
+        synchronized (queueLock) {
+            if (closed) {
+                throw new ManagerSaveException("Журнал изменений закрыт.");
+            }
+            if (failure != null) {
+                throw new ManagerSaveException("Ошибка при записи в журнал изменений.");
+            }
+            queue.add(bytes);
+            recordCount++;
+            size += bytes.length;
+            queueLock.notifyAll();
+            return ++appendedSeq;
+        }
+    }
+
+    private void awaitDurable(long seq) {
+        synchronized (queueLock) {
+            while (durableSeq < seq && failure == null) {
+                try {
+                    queueLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ManagerSaveException("Ожидание записи журнала изменений прервано.");
+                }
+            }
+            if (durableSeq < seq) {
+                throw new ManagerSaveException("Ошибка при записи в журнал изменений.");
+            }
+        }
+    }
+
+    private void runWriter() {
+        while (true) {
+            synchronized (queueLock) {
+                try {
+                    while (queue.isEmpty() && !closed) {
+                        queueLock.wait();
+                    }
+                    if (queue.isEmpty()) {
+                        return;
+                    }
+                    // даём пачке набраться, если сброс не запрошен явно
+                    long deadline = System.currentTimeMillis() + commitIntervalMillis;
+                    long remaining = commitIntervalMillis;
+                    while (!flushRequested && !closed && remaining > 0) {
+                        queueLock.wait(remaining);
+                        remaining = deadline - System.currentTimeMillis();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                flushRequested = false;
+            }
+            try {
+                synchronized (ioLock) {
+                    commitPending();
+                }
+            } catch (ManagerSaveException e) {
+                return;
+            }
+        }
+    }
+
+    // вызывается под ioLock: вся очередь записывается одним буфером и сбрасывается одним fsync
+    private void commitPending() {
+        List<byte[]> batch;
+        long seq;
+        synchronized (queueLock) {
+            if (queue.isEmpty()) {
+                return;
+            }
+            batch = queue;
+            queue = new ArrayList<>();
+            seq = appendedSeq;
+        }
+        long fsyncNanos;
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(
+                batch.stream().mapToInt(bytes -> bytes.length).sum());
+            batch.forEach(buffer::put);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            long start = System.nanoTime();
+            channel.force(false);
+            fsyncNanos = System.nanoTime() - start;
+        } catch (IOException e) {
+            synchronized (queueLock) {
+                failure = e;
+                queueLock.notifyAll();
+            }
+            throw new ManagerSaveException("Ошибка при записи в журнал изменений.");
+        }
+        synchronized (queueLock) {
+            durableSeq = seq;
+            batches++;
+            batchedRecords += batch.size();
+            maxBatchSize = Math.max(maxBatchSize, batch.size());
+            totalFsyncNanos += fsyncNanos;
+            maxFsyncNanos = Math.max(maxFsyncNanos, fsyncNanos);
+            queueLock.notifyAll();
+        }
+    }
+}
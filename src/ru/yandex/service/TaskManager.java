@@ -1,9 +1,16 @@
 package ru.yandex.service;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 import ru.yandex.model.Epic;
 import ru.yandex.model.Subtask;
 import ru.yandex.model.Task;
+import ru.yandex.model.TaskStatus;
+import ru.yandex.model.TaskType;
+import ru.yandex.model.TimeSlot;
+import ru.yandex.util.Page;
 
 public interface TaskManager {
 
@@ -13,6 +20,12 @@ public interface TaskManager {
 
     int addEpic(Epic epic);
 
+    // пакетное добавление: пакет проверяется целиком и добавляется полностью или не добавляется
+    // совсем (BulkInsertException с индексом первого конфликтующего элемента)
+    List<Integer> addTasks(List<? extends Task> tasks);
+
+    List<Integer> addSubtasks(List<? extends Subtask> subtasks);
+
     void updateTask(Task task);
 
     void updateSubtask(Subtask subtask);
@@ -25,6 +38,23 @@ public interface TaskManager {
 
     List<Subtask> getAllSubtasks();
 
+    // обход элементов по возрастанию id без копирования списка; action не должен изменять
+    // менеджер. Потокобезопасный менеджер держит блокировку чтения на время всего обхода
+    void forEachTask(Consumer<? super Task> action);
+
+    void forEachEpic(Consumer<? super Epic> action);
+
+    void forEachSubtask(Consumer<? super Subtask> action);
+
+    // постраничные варианты списков: не более limit элементов после позиции cursor (null - с
+    // начала). Задачи, эпики и подзадачи упорядочены по id, приоритетный список - по времени
+    // начала. Некорректные limit или cursor приводят к IllegalArgumentException
+    Page<Task> getTasksPage(int limit, String cursor);
+
+    Page<Epic> getEpicsPage(int limit, String cursor);
+
+    Page<Subtask> getSubtasksPage(int limit, String cursor);
+
     void clearTasks();
 
     void clearSubtasks();
@@ -47,5 +77,53 @@ public interface TaskManager {
 
     List<Task> getPrioritizedTasks();
 
+    // задачи и подзадачи, начинающиеся в промежутке [from, to); null - граница не задана
+    List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to);
+
+    // то же, что getPrioritizedTasks(from, to); хранилище с индексом по времени начала (например,
+    // JdbcTaskManager) отбирает элементы запросом к индексу
+    List<Task> getTasksStartingBetween(LocalDateTime from, LocalDateTime to);
+
+    // задачи и подзадачи с указанным статусом по возрастанию id. Статус эпика вычисляется по
+    // подзадачам, поэтому эпики не учитываются
+    List<Task> getTasksByStatus(TaskStatus status);
+
+    Page<Task> getPrioritizedTasksPage(int limit, String cursor);
+
+    // до limit самых ранних свободных промежутков окна [from, to), в которые помещается задача
+    // длительностью duration
+    List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime from, LocalDateTime to,
+        int limit);
+
     List<Task> getHistory();
+
+    // транзакция: изменения между beginTransaction и commit сохраняются одной записью, а rollback
+    // возвращает затронутые элементы к состоянию на момент начала
+    void beginTransaction();
+
+    void commit();
+
+    void rollback();
+
+    boolean isInTransaction();
+
+    // выполняет действия в транзакции и откатывает её, если действие завершилось исключением
+    default void inTransaction(Runnable work) {
+        beginTransaction();
+        try {
+            work.run();
+        } catch (RuntimeException e) {
+            rollback();
+            throw e;
+        }
+        commit();
+    }
+
+    // версия коллекции задач указанного типа: меняется при каждом её изменении
+    long getVersion(TaskType type);
+
+    // потокобезопасный менеджер HTTP-сервер обслуживает параллельно, остальные - в одном потоке
+    default boolean isThreadSafe() {
+        return false;
+    }
 }
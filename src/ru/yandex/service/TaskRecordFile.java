@@ -0,0 +1,319 @@
+package ru.yandex.service;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+import ru.yandex.exceptions.ManagerLoadException;
+import ru.yandex.exceptions.ManagerSaveException;
+import ru.yandex.model.Epic;
+import ru.yandex.model.Subtask;
+import ru.yandex.model.Task;
+import ru.yandex.model.TaskStatus;
+import ru.yandex.model.TaskType;
+
+// файл записей фиксированного размера: каждая задача занимает свой слот и перезаписывается на
+// месте. Слот хранит два экземпляра записи с порядковым номером и контрольной суммой; запись всегда
+// идёт в неактуальный экземпляр, поэтому оборванная запись не портит предыдущую версию. Имя и
+// описание, не помещающиеся в слот, дописываются в файл переполнения (он не уплотняется)
+public class TaskRecordFile implements AutoCloseable {
+
+    private static final int MAGIC = 0x4B524543;
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int COPY_SIZE = 256, SLOT_SIZE = 2 * COPY_SIZE;
+    // порядковый номер (long), контрольная сумма (int), длина данных (short)
+    private static final int COPY_HEADER_SIZE = Long.BYTES + Integer.BYTES + Short.BYTES;
+    private static final int MAX_PAYLOAD = COPY_SIZE - COPY_HEADER_SIZE;
+    // тип, id, статус, id эпика, длительность и время начала (секунды и наносекунды), флаг строк
+    private static final int FIXED_PAYLOAD = 1 + 4 + 1 + 4 + 12 + 12 + 1;
+    private static final byte TOMBSTONE = -1, INLINE = 0, OVERFLOW = 1;
+    private final FileChannel channel;
+    private final FileChannel overflow;
+    private final HashMap<Integer, Integer> slotById = new HashMap<>();
+    // установленный бит означает, что актуален второй экземпляр записи слота
+    private final BitSet activeCopy = new BitSet();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    // слоты, освобождённые после последнего sync: пока отметка об удалении может быть не на
+    // диске, новая запись в такой слот затёрла бы экземпляр с последней сброшенной версией, и
+    // оборванная запись вернула бы удалённую задачу
+    private final List<Integer> releasedSlots = new ArrayList<>();
+    private final List<Task> loaded = new ArrayList<>();
+    private int slotCount = 0;
+    private long sequence = 0;
+
+    public TaskRecordFile(Path file) {
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+            overflow = FileChannel.open(file.resolveSibling(file.getFileName() + ".overflow"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось открыть файл записей.");
+        }
+        try {
+            if (channel.size() < HEADER_SIZE) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putShort(VERSION).putInt(SLOT_SIZE).rewind();
+                writeFully(channel, header, 0);
+                channel.force(true);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                readFully(channel, header, 0);
+                if (header.getInt() != MAGIC || header.getShort() != VERSION
+                    || header.getInt() != SLOT_SIZE) {
+                    throw new ManagerLoadException("Некорректный формат файла записей.");
+                }
+            }
+            scan();
+        } catch (IOException e) {
+            throw new ManagerLoadException("Ошибка при чтении файла записей.");
+        }
+    }
+
+    // задачи, прочитанные из файла при открытии, в порядке слотов
+    public List<Task> getLoaded() {
+        return loaded;
+    }
+
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    public int getFreeSlotCount() {
+        return freeSlots.size();
+    }
+
+    public void write(Task task) {
+        Integer slot = slotById.get(task.getId());
+        if (slot == null) {
+            slot = freeSlots.isEmpty() ? slotCount++ : freeSlots.poll();
+            slotById.put(task.getId(), slot);
+        }
+        try {
+            writeCopy(slot, encode(task));
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при записи в файл записей.");
+        }
+    }
+
+    public void remove(int id) {
+        Integer slot = slotById.remove(id);
+        if (slot == null) {
+            return;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(1 + Integer.BYTES);
+        payload.put(TOMBSTONE).putInt(id).flip();
+        try {
+            writeCopy(slot, payload);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при записи в файл записей.");
+        }
+        releasedSlots.add(slot);
+    }
+
+    // сбрасывает на диск все записанные слоты; освобождённые до этого слоты становятся доступны
+    // для новых записей
+    public void sync() {
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при записи в файл записей.");
+        }
+        freeSlots.addAll(releasedSlots);
+        releasedSlots.clear();
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+            overflow.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при закрытии файла записей.");
+        }
+    }
+
+    // для каждого слота выбирается корректный экземпляр с наибольшим порядковым номером; слоты
+    // без корректных данных и с отметкой об удалении становятся свободными. Последний слот может
+    // быть неполным, если сбой случился при расширении файла
+    private void scan() throws IOException {
+        slotCount = (int) ((channel.size() - HEADER_SIZE + SLOT_SIZE - 1) / SLOT_SIZE);
+        for (int slot = 0; slot < slotCount; slot++) {
+            ByteBuffer first = readCopy(slot, 0), second = readCopy(slot, 1);
+            long firstSeq = first == null ? -1 : first.getLong(0);
+            long secondSeq = second == null ? -1 : second.getLong(0);
+            ByteBuffer current = secondSeq > firstSeq ? second : first;
+            activeCopy.set(slot, secondSeq > firstSeq);
+            sequence = Math.max(sequence, Math.max(firstSeq, secondSeq));
+            if (current == null) {
+                freeSlots.add(slot);
+                continue;
+            }
+            current.position(COPY_HEADER_SIZE);
+            Task task = decode(current);
+            if (task == null) {
+                freeSlots.add(slot);
+            } else if (slotById.put(task.getId(), slot) != null) {
+                throw new ManagerLoadException("Некорректный формат файла записей.");
+            } else {
+                loaded.add(task);
+            }
+        }
+    }
+
+    // возвращает экземпляр записи или null, если он не записан полностью или повреждён
+    private ByteBuffer readCopy(int slot, int copy) throws IOException {
+        long position = copyPosition(slot, copy);
+        if (position + COPY_SIZE > channel.size()) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(COPY_SIZE);
+        readFully(channel, buffer, position);
+        long seq = buffer.getLong(0);
+        int crc = buffer.getInt(Long.BYTES);
+        int length = buffer.getShort(Long.BYTES + Integer.BYTES);
+        if (length <= 0 || length > MAX_PAYLOAD || crc != checksum(buffer, seq, length)) {
+            return null;
+        }
+        return buffer.limit(COPY_HEADER_SIZE + length);
+    }
+
+    private void writeCopy(int slot, ByteBuffer payload) throws IOException {
+        int copy = activeCopy.get(slot) ? 0 : 1;
+        int length = payload.remaining();
+        ByteBuffer buffer = ByteBuffer.allocate(COPY_SIZE);
+        buffer.putLong(++sequence).putInt(0).putShort((short) length).put(payload);
+        buffer.putInt(Long.BYTES, checksum(buffer, sequence, length));
+        buffer.rewind();
+        writeFully(channel, buffer, copyPosition(slot, copy));
+        activeCopy.set(slot, copy == 1);
+    }
+
+    private static long copyPosition(int slot, int copy) {
+        return HEADER_SIZE + (long) slot * SLOT_SIZE + (long) copy * COPY_SIZE;
+    }
+
+    private static int checksum(ByteBuffer buffer, long seq, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, seq));
+        crc.update(buffer.slice(COPY_HEADER_SIZE, length));
+        return (int) crc.getValue();
+    }
+
+    private ByteBuffer encode(Task task) throws IOException {
+        TaskType type = task instanceof Epic ? TaskType.EPIC
+            : (task instanceof Subtask ? TaskType.SUBTASK : TaskType.TASK);
+        byte[] name = task.getName().getBytes(StandardCharsets.UTF_8);
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(MAX_PAYLOAD);
+        payload.put((byte) type.ordinal()).putInt(task.getId())
+            .put((byte) task.getStatus().ordinal());
+        if (type == TaskType.EPIC) {
+            // время и длительность эпика вычисляются по подзадачам
+            payload.putInt(-1).putLong(0).putInt(0).putLong(0).putInt(0);
+        } else {
+            payload.putInt(type == TaskType.SUBTASK ? ((Subtask) task).getEpicId() : -1)
+                .putLong(task.getDuration().getSeconds()).putInt(task.getDuration().getNano())
+                .putLong(task.getStartTime().toEpochSecond(ZoneOffset.UTC))
+                .putInt(task.getStartTime().getNano());
+        }
+        int stringsSize = 2 * Integer.BYTES + name.length + description.length;
+        if (FIXED_PAYLOAD + stringsSize <= MAX_PAYLOAD) {
+            payload.put(INLINE).putInt(name.length).put(name).putInt(description.length)
+                .put(description);
+        } else {
+            ByteBuffer strings = ByteBuffer.allocate(Integer.BYTES + stringsSize);
+            strings.putInt(0).putInt(name.length).put(name).putInt(description.length)
+                .put(description);
+            CRC32 crc = new CRC32();
+            crc.update(strings.slice(Integer.BYTES, stringsSize));
+            strings.putInt(0, (int) crc.getValue()).rewind();
+            long position = overflow.size();
+            writeFully(overflow, strings, position);
+            // строки должны оказаться на диске раньше, чем слот, который на них ссылается
+            overflow.force(false);
+            payload.put(OVERFLOW).putLong(position).putInt(stringsSize);
+        }
+        return payload.flip();
+    }
+
+    // возвращает null для отметки об удалении
+    private Task decode(ByteBuffer payload) throws IOException {
+        try {
+            byte typeCode = payload.get();
+            if (typeCode == TOMBSTONE) {
+                return null;
+            }
+            TaskType type = TaskType.values()[typeCode];
+            int id = payload.getInt();
+            TaskStatus status = TaskStatus.values()[payload.get()];
+            int epicId = payload.getInt();
+            Duration duration = Duration.ofSeconds(payload.getLong(), payload.getInt());
+            LocalDateTime startTime = LocalDateTime.ofEpochSecond(payload.getLong(),
+                payload.getInt(), ZoneOffset.UTC);
+            ByteBuffer strings = payload;
+            if (payload.get() == OVERFLOW) {
+                long position = payload.getLong();
+                int size = payload.getInt();
+                strings = ByteBuffer.allocate(Integer.BYTES + size);
+                readFully(overflow, strings, position);
+                CRC32 crc = new CRC32();
+                crc.update(strings.slice(Integer.BYTES, size));
+                if (strings.getInt() != (int) crc.getValue()) {
+                    throw new ManagerLoadException("Повреждён файл переполнения записей.");
+                }
+            }
+            String name = readString(strings), description = readString(strings);
+            return switch (type) {
+                case TaskType.TASK -> new Task(name, description, id, status, duration, startTime);
+                case TaskType.EPIC -> new Epic(name, description, id);
+                case TaskType.SUBTASK -> new Subtask(name, description, id, status, epicId,
+                    duration, startTime);
+            };
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+                 | DateTimeException | ArithmeticException e) {
+            throw new ManagerLoadException("Некорректный формат файла записей.");
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new ManagerLoadException("Некорректный формат файла записей.");
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+        throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new ManagerLoadException("Неожиданный конец файла записей.");
+            }
+        }
+        buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+        throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+}
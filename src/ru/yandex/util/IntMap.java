@@ -0,0 +1,361 @@
+package ru.yandex.util;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+
+// отображение int -> объект без упаковки ключей. Записи лежат в параллельных массивах ключей и
+// значений, упорядоченных по ключу, а поиск позиции записи идёт по хеш-индексу с открытой
+// адресацией. Обход всегда идёт по возрастанию ключа, как у TreeMap. Id выдаются по возрастанию,
+// поэтому новая запись обычно дописывается в конец за O(1); вставка меньшего ключа сдвигает
+// массивы за O(n). Записи в произвольном порядке (например, при загрузке) добавляются пачкой
+// через putAll: они дописываются в конец, после чего массивы один раз сортируются. Удалённая
+// запись остаётся пустой ячейкой до уплотнения, когда пустых ячеек становится больше половины.
+// Значения null не допускаются
+public class IntMap<V> {
+
+    private static final int MIN_CAPACITY = 8;
+    private int[] keys;
+    private Object[] values;
+    // индекс хранит позицию записи + 1, 0 - свободная ячейка. Длина индекса вдвое больше длины
+    // массивов записей, поэтому он заполнен не более чем наполовину
+    private int[] index;
+    // count - занятые позиции массивов вместе с удалёнными, size - живые записи
+    private int count;
+    private int size;
+    private int modCount;
+    private boolean frozen;
+
+    public IntMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntMap(int expectedSize) {
+        int capacity = Integer.max(MIN_CAPACITY, expectedSize);
+        keys = new int[capacity];
+        values = new Object[capacity];
+        index = new int[indexLength(capacity)];
+    }
+
+    public IntMap(IntMap<? extends V> other) {
+        this(other.size);
+        for (int pos = 0; pos < other.count; pos++) {
+            if (other.values[pos] != null) {
+                keys[count] = other.keys[pos];
+                values[count++] = other.values[pos];
+            }
+        }
+        size = count;
+        rebuildIndex();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        int pos = find(key);
+        return pos >= 0 && values[pos] != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int pos = find(key);
+        return pos < 0 ? null : (V) values[pos];
+    }
+
+    // возвращает прежнее значение или null
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        Objects.requireNonNull(value);
+        checkMutable();
+        int pos = find(key);
+        if (pos >= 0) {
+            V previous = (V) values[pos];
+            values[pos] = value;
+            if (previous == null) {
+                size++;
+                modCount++;
+            }
+            return previous;
+        }
+        if (count == keys.length) {
+            if (count - size >= count / 2) {
+                compact();
+            } else {
+                resize(keys.length * 2);
+            }
+        }
+        modCount++;
+        size++;
+        if (count == 0 || keys[count - 1] < key) {
+            keys[count] = key;
+            values[count] = value;
+            addToIndex(key, count++);
+            return null;
+        }
+        // ключ меньше последнего: запись вставляется на своё место, позиции следующих сдвигаются
+        int insertAt = -Arrays.binarySearch(keys, 0, count, key) - 1;
+        System.arraycopy(keys, insertAt, keys, insertAt + 1, count - insertAt);
+        System.arraycopy(values, insertAt, values, insertAt + 1, count - insertAt);
+        keys[insertAt] = key;
+        values[insertAt] = value;
+        count++;
+        rebuildIndex();
+        return null;
+    }
+
+    // добавляет значения с ключами keyOf в любом порядке за O((n + m) log (n + m)) в худшем
+    // случае; при совпадении ключей побеждает значение, добавленное позже
+    public void putAll(Collection<? extends V> items, ToIntFunction<? super V> keyOf) {
+        checkMutable();
+        if (items.isEmpty()) {
+            return;
+        }
+        items.forEach(Objects::requireNonNull);
+        if (count + items.size() > keys.length) {
+            resize(Integer.max(count + items.size(), keys.length * 2));
+        }
+        boolean ordered = true;
+        for (V value : items) {
+            int key = keyOf.applyAsInt(value);
+            // пока ключи растут, запись сразу попадает в индекс, как при обычном put
+            ordered = ordered && (count == 0 || keys[count - 1] < key);
+            keys[count] = key;
+            values[count] = value;
+            if (ordered) {
+                addToIndex(key, count);
+            }
+            count++;
+        }
+        modCount++;
+        if (ordered) {
+            size += items.size();
+        } else {
+            sortEntries();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        checkMutable();
+        int pos = find(key);
+        if (pos < 0 || values[pos] == null) {
+            return null;
+        }
+        V previous = (V) values[pos];
+        values[pos] = null;
+        size--;
+        modCount++;
+        if (count - size > count / 2 && count > MIN_CAPACITY) {
+            compact();
+        }
+        return previous;
+    }
+
+    public void clear() {
+        checkMutable();
+        Arrays.fill(values, 0, count, null);
+        Arrays.fill(index, 0);
+        count = 0;
+        size = 0;
+        modCount++;
+    }
+
+    // после вызова любые изменения приводят к UnsupportedOperationException
+    public IntMap<V> freeze() {
+        frozen = true;
+        return this;
+    }
+
+    // ключи по возрастанию
+    public IntStream keys() {
+        int[] live = new int[size];
+        int next = 0;
+        for (int pos = 0; pos < count; pos++) {
+            if (values[pos] != null) {
+                live[next++] = keys[pos];
+            }
+        }
+        return Arrays.stream(live);
+    }
+
+    public void forEachKey(IntConsumer action) {
+        int expectedModCount = modCount;
+        for (int pos = 0; pos < count; pos++) {
+            if (values[pos] != null) {
+                action.accept(keys[pos]);
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    // значения по возрастанию ключа; коллекция отражает изменения отображения и не изменяется
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator(0);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    // значения с ключами больше key по возрастанию ключа; начало находится двоичным поиском
+    public Iterator<V> valuesAfter(int key) {
+        int pos = Arrays.binarySearch(keys, 0, count, key);
+        return new ValueIterator(pos >= 0 ? pos + 1 : -pos - 1);
+    }
+
+    private int find(int key) {
+        int mask = index.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            int entry = index[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (keys[entry - 1] == key) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private void addToIndex(int key, int pos) {
+        int mask = index.length - 1;
+        int slot = hash(key) & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = pos + 1;
+    }
+
+    private void rebuildIndex() {
+        Arrays.fill(index, 0);
+        for (int pos = 0; pos < count; pos++) {
+            addToIndex(keys[pos], pos);
+        }
+    }
+
+    // удалённые записи выбрасываются, живые сдвигаются к началу с сохранением порядка
+    private void compact() {
+        int next = 0;
+        for (int pos = 0; pos < count; pos++) {
+            if (values[pos] != null) {
+                keys[next] = keys[pos];
+                values[next++] = values[pos];
+            }
+        }
+        Arrays.fill(values, next, count, null);
+        count = next;
+        modCount++;
+        rebuildIndex();
+    }
+
+    // живые записи сортируются по ключу и позиции, упакованным в long; из записей с одинаковым
+    // ключом остаётся самая поздняя. Удалённые записи при этом выбрасываются
+    private void sortEntries() {
+        long[] order = new long[count];
+        int live = 0;
+        for (int pos = 0; pos < count; pos++) {
+            if (values[pos] != null) {
+                order[live++] = ((long) keys[pos] << 32) | pos;
+            }
+        }
+        Arrays.sort(order, 0, live);
+        int[] sortedKeys = new int[keys.length];
+        Object[] sortedValues = new Object[keys.length];
+        int next = 0;
+        for (int i = 0; i < live; i++) {
+            int key = (int) (order[i] >> 32);
+            Object value = values[(int) order[i]];
+            if (next > 0 && sortedKeys[next - 1] == key) {
+                sortedValues[next - 1] = value;
+            } else {
+                sortedKeys[next] = key;
+                sortedValues[next++] = value;
+            }
+        }
+        keys = sortedKeys;
+        values = sortedValues;
+        count = next;
+        size = next;
+        rebuildIndex();
+    }
+
+    private void resize(int capacity) {
+        keys = Arrays.copyOf(keys, capacity);
+        values = Arrays.copyOf(values, capacity);
+        index = new int[indexLength(capacity)];
+        rebuildIndex();
+    }
+
+    private void checkMutable() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Отображение не изменяется.");
+        }
+    }
+
+    private static int indexLength(int capacity) {
+        return Integer.highestOneBit(capacity - 1) << 2;
+    }
+
+    // id идут подряд, поэтому ключ перемешивается, чтобы соседние ключи не занимали соседние
+    // ячейки индекса длинными цепочками
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private class ValueIterator implements Iterator<V> {
+
+        private int pos;
+        private final int expectedModCount = modCount;
+
+        ValueIterator(int pos) {
+            this.pos = pos;
+            skipRemoved();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pos < count;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (pos >= count) {
+                throw new NoSuchElementException();
+            }
+            V value = (V) values[pos++];
+            skipRemoved();
+            return value;
+        }
+
+        private void skipRemoved() {
+            while (pos < count && values[pos] == null) {
+                pos++;
+            }
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package ru.yandex.util;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import ru.yandex.model.Task;
+import ru.yandex.model.TimeSlot;
+
+// сбалансированное (AVL) дерево интервалов [startTime, endTime), упорядоченное по паре
+// (startTime, id) и дополненное максимальным концом интервала, минимальным началом и наибольшим
+// свободным промежутком в поддереве; поиск пересечений и свободных промежутков - O(log n + k)
+public class IntervalTree {
+
+    private final Map<Integer, Node> indexMap = new HashMap<>();
+    private Node root = null;
+
+    public void add(Task task) {
+        remove(task.getId());
+        Node node = new Node(task);
+        root = insert(root, node);
+        indexMap.put(task.getId(), node);
+    }
+
+    public boolean remove(int id) {
+        Node node = indexMap.remove(id);
+        if (node == null) {
+            return false;
+        }
+        root = delete(root, node.start, node.id);
+        return true;
+    }
+
+    public void clear() {
+        indexMap.clear();
+        root = null;
+    }
+
+    public int size() {
+        return indexMap.size();
+    }
+
+    public boolean isEmpty() {
+        return indexMap.isEmpty();
+    }
+
+    // возвращает самую раннюю по времени начала задачу, пересекающуюся с переданной; сама задача
+    // (элемент с тем же id) не учитывается
+    public Optional<Task> findOverlap(Task task) {
+        List<Task> result = new ArrayList<>(1);
+        collectOverlaps(root, task.getStartTime(), task.getEndTime(), task.getId(), result, 1);
+        return result.stream().findFirst();
+    }
+
+    // возвращает все пересекающиеся с переданной задачи в порядке времени начала
+    public List<Task> getOverlaps(Task task) {
+        List<Task> result = new ArrayList<>();
+        collectOverlaps(root, task.getStartTime(), task.getEndTime(), task.getId(), result,
+            Integer.MAX_VALUE);
+        return result;
+    }
+
+    // свободные промежутки внутри окна [from, to) длиной не меньше duration в порядке времени, не
+    // более limit штук. Поддеревья без достаточного промежутка пропускаются целиком, поэтому на
+    // каждый найденный промежуток приходится O(log n) шагов
+    public List<TimeSlot> findFreeSlots(LocalDateTime from, LocalDateTime to, Duration duration,
+        int limit) {
+        List<TimeSlot> result = new ArrayList<>();
+        LocalDateTime busyUntil = collectFreeSlots(root, to, duration, limit, from, result);
+        // промежуток после последнего интервала до конца окна
+        if (result.size() < limit && fits(busyUntil, to, duration)) {
+            result.add(new TimeSlot(busyUntil, to));
+        }
+        return result;
+    }
+
+    public List<Task> toList() {
+        List<Task> result = new ArrayList<>(size());
+        inOrder(root, result);
+        return result;
+    }
+
+    // семантика пересечения совпадает с Task.overlaps: интервалы [s1, e1) и [s2, e2) пересекаются,
+    // если начало одного из них лежит внутри другого (s2 <= s1 < e2 или s1 <= s2 < e1)
+    private boolean collectOverlaps(Node node, LocalDateTime start, LocalDateTime end,
+        int excludedId, List<Task> result, int limit) {
+        // у всех пересекающихся элементов конец не раньше start
+        if (node == null || node.maxEnd.isBefore(start)) {
+            return result.size() >= limit;
+        }
+        if (collectOverlaps(node.left, start, end, excludedId, result, limit)) {
+            return true;
+        }
+        boolean startsInside = !node.start.isBefore(start) && node.start.isBefore(end);
+        boolean containsStart = !start.isBefore(node.start) && start.isBefore(node.end);
+        if ((startsInside || containsStart) && node.id != excludedId) {
+            result.add(node.task);
+            if (result.size() >= limit) {
+                return true;
+            }
+        }
+        // правое поддерево начинается не раньше node.start; если node.start уже позже start и не
+        // раньше end, пересечений справа быть не может
+        if (node.start.isAfter(start) && !node.start.isBefore(end)) {
+            return false;
+        }
+        return collectOverlaps(node.right, start, end, excludedId, result, limit);
+    }
+
+    // busyUntil - конец занятого времени перед поддеревом; возвращается его значение после обхода
+    private LocalDateTime collectFreeSlots(Node node, LocalDateTime to, Duration duration,
+        int limit, LocalDateTime busyUntil, List<TimeSlot> result) {
+        if (node == null || result.size() >= limit || !busyUntil.isBefore(to)
+            || !node.maxEnd.isAfter(busyUntil)) {
+            return busyUntil;
+        }
+        // ни перед поддеревом, ни внутри него нет промежутка нужной длины
+        if (!fits(busyUntil, min(node.minStart, to), duration)
+            && node.maxGap.compareTo(duration) < 0) {
+            return node.maxEnd;
+        }
+        busyUntil = collectFreeSlots(node.left, to, duration, limit, busyUntil, result);
+        if (result.size() >= limit) {
+            return busyUntil;
+        }
+        LocalDateTime gapEnd = min(node.start, to);
+        if (fits(busyUntil, gapEnd, duration)) {
+            result.add(new TimeSlot(busyUntil, gapEnd));
+        }
+        if (!node.start.isBefore(to)) {
+            // окно исчерпано: дальше интервалы начинаются не раньше его конца
+            return to;
+        }
+        busyUntil = max(busyUntil, node.end);
+        return collectFreeSlots(node.right, to, duration, limit, busyUntil, result);
+    }
+
+    private static boolean fits(LocalDateTime start, LocalDateTime end, Duration duration) {
+        return start.isBefore(end) && gap(start, end).compareTo(duration) >= 0;
+    }
+
+    private static Duration gap(LocalDateTime start, LocalDateTime end) {
+        return end.isAfter(start) ? Duration.between(start, end) : Duration.ZERO;
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private void inOrder(Node node, List<Task> result) {
+        if (node == null) {
+            return;
+        }
+        inOrder(node.left, result);
+        result.add(node.task);
+        inOrder(node.right, result);
+    }
+
+    private static int compare(LocalDateTime start1, int id1, LocalDateTime start2, int id2) {
+        int result = start1.compareTo(start2);
+        return result != 0 ? result : Integer.compare(id1, id2);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        LocalDateTime maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+        node.minStart = node.left != null ? node.left.minStart : node.start;
+        // промежутки между объединением интервалов левого поддерева, узлом и правым поддеревом;
+        // для пересекающихся интервалов значение - верхняя оценка, что достаточно для отсечения
+        Duration maxGap = Duration.ZERO;
+        LocalDateTime busyUntil = node.end;
+        if (node.left != null) {
+            maxGap = max(node.left.maxGap, gap(node.left.maxEnd, node.start));
+            busyUntil = max(busyUntil, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxGap = max(maxGap, max(node.right.maxGap, gap(busyUntil, node.right.minStart)));
+        }
+        node.maxGap = maxGap;
+    }
+
+    private static Duration max(Duration a, Duration b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node insert(Node node, Node newNode) {
+        if (node == null) {
+            return newNode;
+        }
+        if (compare(newNode.start, newNode.id, node.start, node.id) < 0) {
+            node.left = insert(node.left, newNode);
+        } else {
+            node.right = insert(node.right, newNode);
+        }
+        return balance(node);
+    }
+
+    private static Node delete(Node node, LocalDateTime start, int id) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node.start, node.id);
+        if (cmp < 0) {
+            node.left = delete(node.left, start, id);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, start, id);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = deleteMin(node.right);
+            successor.left = node.left;
+            return balance(successor);
+        }
+        return balance(node);
+    }
+
+    private static Node deleteMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    private static class Node {
+
+        // границы интервала запоминаются при вставке, чтобы последующее изменение объекта задачи
+        // не нарушало порядок в дереве
+        final Task task;
+        final int id;
+        final LocalDateTime start;
+        final LocalDateTime end;
+        LocalDateTime maxEnd;
+        LocalDateTime minStart;
+        Duration maxGap = Duration.ZERO;
+        int height = 1;
+        Node left;
+        Node right;
+
+        Node(Task task) {
+            this.task = task;
+            this.id = task.getId();
+            this.start = task.getStartTime();
+            this.end = task.getEndTime();
+            this.maxEnd = end;
+            this.minStart = start;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package ru.yandex.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+// страница постраничной выдачи. Курсор непрозрачен для клиента: это закодированная позиция
+// последнего элемента страницы, следующая страница начинается сразу после неё. На последней
+// странице курсор равен null
+public class Page<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public Page(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public static String encodeCursor(String position) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String decodeCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Некорректный курсор: " + cursor);
+        }
+    }
+}
@@ -24,7 +24,7 @@ public class TaskList {
     }
 
     public void remove(int id) {
-        Node<Task> toRemove = indexMap.get(id);
+        Node<Task> toRemove = indexMap.remove(id);
         if (toRemove == null) {
             return;
         }
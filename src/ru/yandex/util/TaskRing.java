@@ -0,0 +1,144 @@
+package ru.yandex.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import ru.yandex.model.Task;
+
+// список задач с уникальными id фиксированной ёмкости: элементы лежат в массивах и связаны
+// индексами в двусвязный список, а позиция по id ищется в хеш-таблице с открытой адресацией по
+// примитивным int. При переполнении вытесняется самый давний элемент
+public class TaskRing {
+
+    private static final int NONE = -1;
+    private final Task[] tasks;
+    private final int[] ids;
+    private final int[] previous;
+    private final int[] next;
+    // индекс id -> позиция; в slots хранится позиция + 1, 0 - пустая ячейка
+    private final int[] keys;
+    private final int[] slots;
+    private final int mask;
+    private int first = NONE, last = NONE;
+    // свободные позиции связаны в список через next
+    private int free = 0;
+    private int size = 0;
+
+    public TaskRing(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 29) {
+            throw new IllegalArgumentException("Некорректная ёмкость: " + capacity);
+        }
+        tasks = new Task[capacity];
+        ids = new int[capacity];
+        previous = new int[capacity];
+        next = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            next[i] = i + 1 < capacity ? i + 1 : NONE;
+        }
+        // таблица заполнена не больше чем наполовину
+        int tableSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        keys = new int[tableSize];
+        slots = new int[tableSize];
+        mask = tableSize - 1;
+    }
+
+    public int capacity() {
+        return tasks.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // элемент с тем же id переносится в конец; если места нет, вытесняется первый
+    public void addLast(Task task) {
+        remove(task.getId());
+        if (size == tasks.length) {
+            remove(ids[first]);
+        }
+        int position = free;
+        free = next[position];
+        tasks[position] = task;
+        ids[position] = task.getId();
+        previous[position] = last;
+        next[position] = NONE;
+        if (last == NONE) {
+            first = position;
+        } else {
+            next[last] = position;
+        }
+        last = position;
+        size++;
+        put(task.getId(), position);
+    }
+
+    public void remove(int id) {
+        int cell = find(id);
+        if (cell == NONE) {
+            return;
+        }
+        int position = slots[cell] - 1;
+        delete(cell);
+        if (previous[position] == NONE) {
+            first = next[position];
+        } else {
+            next[previous[position]] = next[position];
+        }
+        if (next[position] == NONE) {
+            last = previous[position];
+        } else {
+            previous[next[position]] = previous[position];
+        }
+        // позиция освобождается вместе со ссылкой на задачу
+        tasks[position] = null;
+        next[position] = free;
+        free = position;
+        size--;
+    }
+
+    public List<Task> toList() {
+        List<Task> result = new ArrayList<>(size);
+        for (int position = first; position != NONE; position = next[position]) {
+            result.add(tasks[position]);
+        }
+        return result;
+    }
+
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int find(int id) {
+        for (int cell = hash(id) & mask; slots[cell] != 0; cell = (cell + 1) & mask) {
+            if (keys[cell] == id) {
+                return cell;
+            }
+        }
+        return NONE;
+    }
+
+    private void put(int id, int position) {
+        int cell = hash(id) & mask;
+        while (slots[cell] != 0) {
+            cell = (cell + 1) & mask;
+        }
+        keys[cell] = id;
+        slots[cell] = position + 1;
+    }
+
+    // удаление со сдвигом: следующие элементы цепочки переносятся в освободившуюся ячейку, если
+    // их исходная ячейка не позже неё, чтобы поиск не обрывался на пустой ячейке
+    private void delete(int cell) {
+        int gap = cell;
+        for (int current = (cell + 1) & mask; slots[current] != 0;
+            current = (current + 1) & mask) {
+            int home = hash(keys[current]) & mask;
+            if (((current - home) & mask) >= ((current - gap) & mask)) {
+                keys[gap] = keys[current];
+                slots[gap] = slots[current];
+                gap = current;
+            }
+        }
+        slots[gap] = 0;
+    }
+}
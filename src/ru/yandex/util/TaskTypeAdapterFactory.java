@@ -0,0 +1,118 @@
+package ru.yandex.util;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import ru.yandex.model.Epic;
+import ru.yandex.model.Subtask;
+import ru.yandex.model.Task;
+import ru.yandex.model.TaskStatus;
+
+// сериализация задач, эпиков и подзадач без рефлексии. Поля пишутся и читаются напрямую; эпик
+// выводится со списком id подзадач вместо самих подзадач. Неизвестные поля при чтении
+// пропускаются, отсутствие обязательных полей приводит к JsonSyntaxException
+public class TaskTypeAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+        if (rawType != Task.class && rawType != Epic.class && rawType != Subtask.class) {
+            return null;
+        }
+        return (TypeAdapter<T>) new TaskTypeAdapter(rawType).nullSafe();
+    }
+
+    private static class TaskTypeAdapter extends TypeAdapter<Task> {
+
+        private final Class<?> type;
+
+        TaskTypeAdapter(Class<?> type) {
+            this.type = type;
+        }
+
+        // список Task может содержать эпики и подзадачи, поэтому вид определяется по объекту
+        @Override
+        public void write(JsonWriter out, Task task) throws IOException {
+            out.beginObject();
+            out.name("id").value(task.getId());
+            out.name("name").value(task.getName());
+            out.name("description").value(task.getDescription());
+            out.name("status").value(task.getStatus().toString());
+            out.name("duration").value(task.getDuration().toString());
+            out.name("startTime").value(task.getStartTime().toString());
+            if (task instanceof Epic epic) {
+                out.name("endTime").value(epic.getEndTime().toString());
+                out.name("subtasks").beginArray();
+                for (int subtaskId : epic.getSubtasks().keys().toArray()) {
+                    out.value(subtaskId);
+                }
+                out.endArray();
+            } else if (task instanceof Subtask subtask) {
+                out.name("epicId").value(subtask.getEpicId());
+            }
+            out.endObject();
+        }
+
+        @Override
+        public Task read(JsonReader in) throws IOException {
+            int id = -1;
+            Integer epicId = null;
+            String name = null, description = null;
+            TaskStatus status = TaskStatus.NEW;
+            Duration duration = null;
+            LocalDateTime startTime = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.skipValue();
+                    continue;
+                }
+                try {
+                    switch (field) {
+                        case "id" -> id = in.nextInt();
+                        case "epicId" -> epicId = in.nextInt();
+                        case "name" -> name = in.nextString();
+                        case "description" -> description = in.nextString();
+                        case "status" -> status = TaskStatus.valueOf(in.nextString());
+                        case "duration" -> duration = Duration.parse(in.nextString());
+                        case "startTime" -> startTime = LocalDateTime.parse(in.nextString());
+                        default -> in.skipValue();
+                    }
+                } catch (IllegalArgumentException | DateTimeException e) {
+                    throw new JsonSyntaxException("Некорректное значение поля " + field, e);
+                }
+            }
+            in.endObject();
+            require(name, "name");
+            require(description, "description");
+            if (type == Epic.class) {
+                // статус, время и подзадачи эпика вычисляются менеджером
+                return new Epic(name, description, id);
+            }
+            require(duration, "duration");
+            require(startTime, "startTime");
+            if (type == Subtask.class) {
+                require(epicId, "epicId");
+                return new Subtask(name, description, id, status, epicId, duration, startTime);
+            }
+            return new Task(name, description, id, status, duration, startTime);
+        }
+
+        private static void require(Object value, String field) {
+            if (value == null) {
+                throw new JsonSyntaxException("Отсутствует обязательное поле " + field);
+            }
+        }
+    }
+}
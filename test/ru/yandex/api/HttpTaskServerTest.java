@@ -9,23 +9,38 @@ import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import java.io.File;
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpRequest.BodyPublishers;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import ru.yandex.exceptions.ManagerLoadException;
 import ru.yandex.model.Epic;
 import ru.yandex.model.Subtask;
 import ru.yandex.model.Task;
+import ru.yandex.model.TaskType;
+import ru.yandex.service.ConcurrentTaskManager;
+import ru.yandex.service.DurabilityPolicy;
+import ru.yandex.service.FileBackedTaskManager;
 import ru.yandex.service.InMemoryTaskManager;
+import ru.yandex.service.SessionHistoryManager;
+import ru.yandex.service.TaskJournal;
 import ru.yandex.service.TaskManager;
 import ru.yandex.util.DurationTypeAdapter;
 import ru.yandex.util.LocalDateTimeAdapter;
@@ -415,4 +430,348 @@ public class HttpTaskServerTest {
         response = client.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(400, response.statusCode());
     }
+
+    @Test
+    public void shouldHandleConcurrentRequestsOnConfiguredExecutor()
+        throws IOException, InterruptedException {
+        TaskManager concurrentManager = new ConcurrentTaskManager();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        HttpTaskServer server = new HttpTaskServer(concurrentManager,
+            new InetSocketAddress("localhost", 0), 64, executor);
+        server.start();
+        try {
+            URI url = URI.create("http://localhost:" + server.getAddress().getPort() + "/tasks");
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                Task task = new Task("_tname_", "_tdesc_", Duration.ofHours(1),
+                    LocalDateTime.MIN.plusHours(2L * i));
+                responses.add(client.sendAsync(HttpRequest.newBuilder().uri(url)
+                    .POST(BodyPublishers.ofString(gson.toJson(task))).build(),
+                    BodyHandlers.ofString()));
+            }
+            for (CompletableFuture<HttpResponse<String>> response : responses) {
+                assertEquals(201, response.join().statusCode());
+            }
+            assertEquals(50, concurrentManager.getAllTasks().size());
+            assertEquals(50, concurrentManager.getAllTasks().stream().map(Task::getId)
+                .distinct().count());
+        } finally {
+            server.stop(0);
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldServeOnlyThreadSafeManagerInVirtualThreads()
+        throws IOException, InterruptedException {
+        List<Boolean> virtual = new ArrayList<>();
+        TaskManager plain = new InMemoryTaskManager() {
+            @Override
+            public Task getTask(int id) {
+                virtual.add(Thread.currentThread().isVirtual());
+                return super.getTask(id);
+            }
+        };
+        TaskManager concurrent = new ConcurrentTaskManager() {
+            @Override
+            public Task getTask(int id) {
+                virtual.add(Thread.currentThread().isVirtual());
+                return super.getTask(id);
+            }
+        };
+        for (TaskManager manager : List.of(plain, concurrent)) {
+            HttpTaskServer server = new HttpTaskServer(manager,
+                new InetSocketAddress("localhost", 0), 0);
+            server.start();
+            try {
+                URI url = URI.create("http://localhost:" + server.getAddress().getPort()
+                    + "/tasks/1");
+                client.send(HttpRequest.newBuilder().uri(url).GET().build(),
+                    BodyHandlers.ofString());
+            } finally {
+                server.stop(0);
+            }
+        }
+        assertEquals(List.of(false, true), virtual);
+    }
+
+    @Test
+    public void shouldCloseJournalOfManagerOnStop() throws IOException, InterruptedException {
+        Path saveFile = File.createTempFile("test_save_file", ".tmp").toPath();
+        Path journalFile = File.createTempFile("test_journal_file", ".tmp").toPath();
+        FileBackedTaskManager manager = new FileBackedTaskManager(saveFile,
+            new TaskJournal(journalFile, DurabilityPolicy.ASYNC, 10_000));
+        HttpTaskServer server = new HttpTaskServer(manager,
+            new InetSocketAddress("localhost", 0), 0);
+        server.closeOnStop(manager);
+        server.start();
+        URI url = URI.create("http://localhost:" + server.getAddress().getPort() + "/tasks");
+        Task task = new Task("_tname_", "_tdesc_", Duration.ZERO, LocalDateTime.MIN);
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder().uri(url)
+            .POST(BodyPublishers.ofString(gson.toJson(task))).build(), BodyHandlers.ofString());
+        assertEquals(201, response.statusCode());
+        // запись ASYNC-журнала ещё в очереди и попадает на диск только при остановке сервера
+        server.stop(0);
+        assertEquals(1, FileBackedTaskManager.loadFromFile(saveFile.toFile(),
+            journalFile.toFile()).getAllTasks().size());
+    }
+
+    @Test
+    public void shouldListTasksWithoutCopyingThem() throws IOException, InterruptedException {
+        TaskManager manager = new ConcurrentTaskManager() {
+            @Override
+            public ArrayList<Task> getAllTasks() {
+                throw new UnsupportedOperationException();
+            }
+        };
+        manager.addTask(new Task("Задача", "_tdesc_", Duration.ZERO, LocalDateTime.MIN));
+        manager.addTask(new Task("_t2name_", "_tdesc_", Duration.ZERO,
+            LocalDateTime.MIN.plusHours(1)));
+        HttpTaskServer server = new HttpTaskServer(manager,
+            new InetSocketAddress("localhost", 0), 0);
+        server.start();
+        try {
+            URI url = URI.create("http://localhost:" + server.getAddress().getPort() + "/tasks");
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder().uri(url).GET()
+                .build(), BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            JsonArray tasks = JsonParser.parseString(response.body()).getAsJsonArray();
+            assertEquals(2, tasks.size());
+            assertEquals("Задача", tasks.get(0).getAsJsonObject().get("name").getAsString());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void shouldStreamListOnCacheMissAndServeCachedBytesAfterwards()
+        throws IOException, InterruptedException {
+        taskManager.addTask(new Task("_t1name_", "_t1desc_", Duration.ZERO, LocalDateTime.MIN));
+        URI url = URI.create("http://localhost:8080/tasks");
+        HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+        HttpResponse<String> streamed = client.send(request, BodyHandlers.ofString());
+        HttpResponse<String> cached = client.send(request, BodyHandlers.ofString());
+        assertEquals(200, streamed.statusCode());
+        assertTrue(streamed.headers().firstValue("Content-Length").isEmpty());
+        assertEquals(streamed.body(), cached.body());
+        assertEquals(cached.body().getBytes(StandardCharsets.UTF_8).length,
+            cached.headers().firstValueAsLong("Content-Length").orElseThrow());
+    }
+
+    @Test
+    public void shouldKeepSeparateHistoryPerSession() throws IOException, InterruptedException {
+        try (SessionHistoryManager sessions = new SessionHistoryManager(10,
+            Duration.ofMinutes(30))) {
+            TaskManager sessionManager = new ConcurrentTaskManager(sessions);
+            int firstId = sessionManager.addTask(new Task("_t1name_", "_t1desc_", Duration.ZERO,
+                LocalDateTime.MIN));
+            int secondId = sessionManager.addTask(new Task("_t2name_", "_t2desc_", Duration.ZERO,
+                LocalDateTime.MIN.plusHours(1)));
+            HttpTaskServer server = new HttpTaskServer(sessionManager,
+                new InetSocketAddress("localhost", 0), 0);
+            server.useSessions(sessions);
+            server.start();
+            try {
+                String base = "http://localhost:" + server.getAddress().getPort();
+                client.send(HttpRequest.newBuilder().uri(URI.create(base + "/tasks/" + firstId))
+                    .header("X-Session-Id", "alice").GET().build(), BodyHandlers.ofString());
+                client.send(HttpRequest.newBuilder().uri(URI.create(base + "/tasks/" + secondId))
+                    .header("Cookie", "theme=dark; session=bob").GET().build(),
+                    BodyHandlers.ofString());
+                HttpResponse<String> alice = client.send(HttpRequest.newBuilder()
+                    .uri(URI.create(base + "/history")).header("X-Session-Id", "alice").GET()
+                    .build(), BodyHandlers.ofString());
+                HttpResponse<String> anonymous = client.send(HttpRequest.newBuilder()
+                    .uri(URI.create(base + "/history")).GET().build(), BodyHandlers.ofString());
+                JsonArray aliceHistory = JsonParser.parseString(alice.body()).getAsJsonArray();
+                assertEquals(1, aliceHistory.size());
+                assertEquals(firstId, aliceHistory.get(0).getAsJsonObject().get("id").getAsInt());
+                assertEquals(0, JsonParser.parseString(anonymous.body()).getAsJsonArray().size());
+                assertEquals(2, sessions.getSessionCount());
+            } finally {
+                server.stop(0);
+            }
+        }
+    }
+
+    @Test
+    public void shouldStreamLargeListInUtf8() throws IOException, InterruptedException {
+        int epicId = taskManager.addEpic(new Epic("Эпик", "Описание"));
+        for (int i = 0; i < 2000; i++) {
+            taskManager.addSubtask(new Subtask("Задача " + i, "Описание", epicId,
+                Duration.ofHours(1), LocalDateTime.MIN.plusHours(2L * i)));
+        }
+        URI url = URI.create("http://localhost:8080/epics/" + epicId + "/subtasks");
+        HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+        HttpResponse<String> response = client.send(request, BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Length").isEmpty());
+        JsonArray jsonArray = JsonParser.parseString(response.body()).getAsJsonArray();
+        assertEquals(2000, jsonArray.size());
+        assertEquals("Задача 1999",
+            jsonArray.get(1999).getAsJsonObject().get("name").getAsString());
+    }
+
+    @Test
+    public void shouldAnswerNotModifiedUntilCollectionChanges()
+        throws IOException, InterruptedException {
+        taskManager.addTask(new Task("_t1name_", "_t1desc_", Duration.ZERO, LocalDateTime.MIN));
+        URI url = URI.create("http://localhost:8080/tasks");
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder().uri(url).GET()
+            .build(), BodyHandlers.ofString());
+        String etag = response.headers().firstValue("ETag").orElseThrow();
+        response = client.send(HttpRequest.newBuilder().uri(url).GET()
+            .header("If-None-Match", etag).build(), BodyHandlers.ofString());
+        assertEquals(304, response.statusCode());
+        assertTrue(response.body().isEmpty());
+        int epicId = taskManager.addEpic(new Epic("_e1name_", "_e1desc_"));
+        response = client.send(HttpRequest.newBuilder().uri(url).GET()
+            .header("If-None-Match", etag).build(), BodyHandlers.ofString());
+        assertEquals(304, response.statusCode());
+        URI epicsUrl = URI.create("http://localhost:8080/epics");
+        String epicsEtag = client.send(HttpRequest.newBuilder().uri(epicsUrl).GET().build(),
+            BodyHandlers.ofString()).headers().firstValue("ETag").orElseThrow();
+        Subtask subtask = new Subtask("_s1name_", "_s1desc_", epicId, Duration.ZERO,
+            LocalDateTime.MIN.plusHours(2));
+        client.send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/subtasks"))
+            .POST(BodyPublishers.ofString(gson.toJson(subtask))).build(), BodyHandlers.ofString());
+        response = client.send(HttpRequest.newBuilder().uri(epicsUrl).GET()
+            .header("If-None-Match", epicsEtag).build(), BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertEquals(1, JsonParser.parseString(response.body()).getAsJsonArray().get(0)
+            .getAsJsonObject().getAsJsonArray("subtasks").size());
+        client.send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks/0"))
+            .DELETE().build(), BodyHandlers.ofString());
+        response = client.send(HttpRequest.newBuilder().uri(url).GET()
+            .header("If-None-Match", etag).build(), BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertEquals("[]", response.body());
+    }
+
+    @Test
+    public void shouldReturnPrioritizedTasksPageByPage() throws IOException, InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            taskManager.addTask(new Task("_t" + i + "name_", "_tdesc_", Duration.ZERO,
+                LocalDateTime.MIN.plusHours(3 - i)));
+        }
+        URI url = URI.create("http://localhost:8080/prioritized?limit=2");
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder().uri(url).GET()
+            .build(), BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        JsonObject page = JsonParser.parseString(response.body()).getAsJsonObject();
+        assertEquals(2, page.getAsJsonArray("items").size());
+        assertEquals("_t2name_", page.getAsJsonArray("items").get(0).getAsJsonObject()
+            .get("name").getAsString());
+        url = URI.create(url + "&cursor=" + page.get("nextCursor").getAsString());
+        response = client.send(HttpRequest.newBuilder().uri(url).GET().build(),
+            BodyHandlers.ofString());
+        page = JsonParser.parseString(response.body()).getAsJsonObject();
+        assertEquals(1, page.getAsJsonArray("items").size());
+        assertEquals("_t0name_", page.getAsJsonArray("items").get(0).getAsJsonObject()
+            .get("name").getAsString());
+        assertTrue(page.get("nextCursor") == null);
+        response = client.send(HttpRequest.newBuilder()
+            .uri(URI.create("http://localhost:8080/tasks?limit=-1")).GET().build(),
+            BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    public void shouldMapListErrorsToSameStatusesForAllTypes()
+        throws IOException, InterruptedException {
+        List<String> paths = List.of("tasks", "epics", "subtasks", "prioritized");
+        for (String path : paths) {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/" + path + "?limit=1&cursor=%25%25"))
+                .GET().build(), BodyHandlers.ofString());
+            assertEquals(400, response.statusCode(), path);
+        }
+        taskServer.stop(0);
+        taskServer = new HttpTaskServer(new InMemoryTaskManager() {
+            @Override
+            public long getVersion(TaskType type) {
+                throw new ManagerLoadException("Ошибка при чтении данных из базы.");
+            }
+        });
+        taskServer.start();
+        for (String path : paths) {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/" + path)).GET().build(),
+                BodyHandlers.ofString());
+            assertEquals(500, response.statusCode(), path);
+        }
+    }
+
+    @Test
+    public void shouldReturnPrioritizedTasksWithinTimeWindow()
+        throws IOException, InterruptedException {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 10, 0);
+        for (int i = 0; i < 4; i++) {
+            taskManager.addTask(new Task("_t" + i + "name_", "_tdesc_", Duration.ofHours(1),
+                start.plusHours(2L * i)));
+        }
+        URI url = URI.create("http://localhost:8080/prioritized?from=2024-05-01T12:00"
+            + "&to=2024-05-01T16:00");
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder().uri(url).GET()
+            .build(), BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        JsonArray range = JsonParser.parseString(response.body()).getAsJsonArray();
+        assertEquals(2, range.size());
+        assertEquals("_t1name_", range.get(0).getAsJsonObject().get("name").getAsString());
+        assertEquals("_t2name_", range.get(1).getAsJsonObject().get("name").getAsString());
+        response = client.send(HttpRequest.newBuilder()
+            .uri(URI.create("http://localhost:8080/prioritized?from=yesterday")).GET().build(),
+            BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    public void shouldReturnEarliestFreeSlots() throws IOException, InterruptedException {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 10, 0);
+        taskManager.addTask(new Task("_t1name_", "_t1desc_", Duration.ofHours(1), start));
+        taskManager.addTask(new Task("_t2name_", "_t2desc_", Duration.ofHours(1),
+            start.plusMinutes(90)));
+        URI url = URI.create("http://localhost:8080/free-slots?duration=PT1H"
+            + "&from=2024-05-01T10:00&to=2024-05-01T18:00&limit=2");
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder().uri(url).GET()
+            .build(), BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        JsonArray slots = JsonParser.parseString(response.body()).getAsJsonArray();
+        assertEquals(1, slots.size());
+        assertEquals("2024-05-01T12:30", slots.get(0).getAsJsonObject().get("start")
+            .getAsString());
+        assertEquals("2024-05-01T18:00", slots.get(0).getAsJsonObject().get("end").getAsString());
+        response = client.send(HttpRequest.newBuilder()
+            .uri(URI.create("http://localhost:8080/free-slots?duration=PT1H")).GET().build(),
+            BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    public void shouldAddBatchOfTasksOrReportFirstConflict()
+        throws IOException, InterruptedException {
+        List<Task> batch = List.of(
+            new Task("_t1name_", "_t1desc_", Duration.ofHours(1), LocalDateTime.MIN.plusHours(2)),
+            new Task("_t2name_", "_t2desc_", Duration.ofHours(1), LocalDateTime.MIN));
+        URI url = URI.create("http://localhost:8080/tasks/bulk");
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder().uri(url)
+            .POST(BodyPublishers.ofString(gson.toJson(batch))).build(), BodyHandlers.ofString());
+        assertEquals(201, response.statusCode());
+        assertEquals("[0,1]", response.body());
+        assertEquals(2, taskManager.getAllTasks().size());
+        List<Task> conflicting = List.of(
+            new Task("_t3name_", "_t3desc_", Duration.ofHours(1), LocalDateTime.MIN.plusHours(4)),
+            new Task("_t4name_", "_t4desc_", Duration.ofHours(1),
+                LocalDateTime.MIN.plusMinutes(150)));
+        response = client.send(HttpRequest.newBuilder().uri(url)
+            .POST(BodyPublishers.ofString(gson.toJson(conflicting))).build(),
+            BodyHandlers.ofString());
+        assertEquals(406, response.statusCode());
+        assertEquals(1, JsonParser.parseString(response.body()).getAsJsonObject().get("index")
+            .getAsInt());
+        assertEquals(2, taskManager.getAllTasks().size());
+        response = client.send(HttpRequest.newBuilder().uri(url)
+            .POST(BodyPublishers.ofString("[null]")).build(), BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+    }
 }
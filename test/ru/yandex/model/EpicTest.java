@@ -2,10 +2,14 @@ package ru.yandex.model;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -38,6 +42,46 @@ class EpicTest {
         assertEquals(s, epic.toString());
     }
 
+    @Test
+    void shouldKeepSnapshotSubtasksWhenEpicChanges() {
+        epic.addSubtask(subtask1);
+        Epic snapshot = (Epic) epic.snapshot();
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.addSubtask(subtask2));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getSubtasks().clear());
+        epic.addSubtask(subtask2);
+        assertEquals(1, snapshot.getSubtasks().size());
+        assertEquals(2, ((Epic) epic.snapshot()).getSubtasks().size());
+    }
+
+    @Test
+    void shouldRecountSubtaskChangedInPlace() {
+        epic.addSubtask(subtask1);
+        epic.addSubtask(subtask2);
+        LocalDateTime start = subtask1.getStartTime().minusDays(1);
+        subtask1.setStatus(TaskStatus.DONE);
+        subtask1.setStartTime(start);
+        epic.updateSubtask(subtask1);
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus());
+        assertEquals(start, epic.getStartTime());
+        subtask2.setStatus(TaskStatus.DONE);
+        epic.updateSubtask(subtask2);
+        assertEquals(TaskStatus.DONE, epic.getStatus());
+        epic.removeSubtask(subtask1);
+        assertEquals(subtask2.getStartTime(), epic.getStartTime());
+        assertEquals(subtask2.getDuration(), epic.getDuration());
+    }
+
+    @Test
+    void shouldHoldSubtaskSnapshotsInEpicSnapshot() {
+        epic.addSubtask(subtask1);
+        Epic snapshot = (Epic) epic.snapshot();
+        Subtask frozen = snapshot.getSubtasks().get(subtask1.getId());
+        assertTrue(frozen.isSnapshot());
+        assertThrows(UnsupportedOperationException.class, () -> frozen.setName("_another_"));
+        subtask1.setStatus(TaskStatus.DONE);
+        assertEquals(TaskStatus.NEW, frozen.getStatus());
+    }
+
     @Test
     void shouldBeIN_PROGRESSWhenSubtasksUpdate() {
         epic.addSubtask(subtask1);
@@ -178,4 +222,65 @@ class EpicTest {
         epic.addSubtask(subtask2);
         assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldKeepAggregatesWhenSubtasksChange() {
+        epic.addSubtask(subtask1);
+        epic.addSubtask(subtask2);
+        epic.addSubtask(subtask3);
+        assertEquals(nowDateTime, epic.getStartTime());
+        assertEquals(nowDateTime.plusHours(214), epic.getEndTime());
+        assertEquals(Duration.ofHours(125), epic.getDuration());
+        epic.updateSubtask(new Subtask("_s3name_", "_s3desc_", 3, TaskStatus.NEW, 42,
+            Duration.ofHours(1), nowDateTime.plusHours(150)));
+        assertEquals(TaskStatus.NEW, epic.getStatus());
+        assertEquals(nowDateTime.plusHours(169), epic.getEndTime());
+        epic.removeSubtask(subtask1);
+        assertEquals(nowDateTime.plusHours(100), epic.getStartTime());
+        assertEquals(Duration.ofHours(70), epic.getDuration());
+        epic.removeSubtask(subtask2);
+        epic.removeSubtask(subtask3);
+        assertEquals(TaskStatus.NEW, epic.getStatus());
+        assertEquals(LocalDateTime.MIN, epic.getStartTime());
+        assertEquals(LocalDateTime.MAX, epic.getEndTime());
+        assertEquals(Duration.ZERO, epic.getDuration());
+    }
+
+    @Test
+    void shouldMatchRecomputedAggregatesOnRandomChanges() {
+        Random random = new Random(42);
+        List<Subtask> current = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            int id = random.nextInt(100);
+            Subtask subtask = new Subtask("_sname_", "_sdesc_", id,
+                TaskStatus.values()[random.nextInt(TaskStatus.values().length)], 42,
+                Duration.ofHours(random.nextInt(5)), nowDateTime.plusHours(random.nextInt(50)));
+            current.removeIf(s -> s.getId() == id);
+            switch (random.nextInt(3)) {
+                case 0 -> epic.removeSubtask(subtask);
+                case 1 -> {
+                    epic.removeSubtask(subtask);
+                    epic.addSubtask(subtask);
+                    current.add(subtask);
+                }
+                default -> {
+                    if (!epic.updateSubtask(subtask)) {
+                        epic.addSubtask(subtask);
+                    }
+                    current.add(subtask);
+                }
+            }
+            assertEquals(current.stream().map(Task::getDuration)
+                .reduce(Duration.ZERO, Duration::plus), epic.getDuration());
+            assertEquals(current.stream().map(Task::getStartTime)
+                .min(LocalDateTime::compareTo).orElse(LocalDateTime.MIN), epic.getStartTime());
+            assertEquals(current.stream().map(Task::getEndTime)
+                .max(LocalDateTime::compareTo).orElse(LocalDateTime.MAX), epic.getEndTime());
+            TaskStatus expected = current.isEmpty() || current.stream()
+                .allMatch(s -> s.getStatus() == TaskStatus.NEW) ? TaskStatus.NEW
+                : (current.stream().allMatch(s -> s.getStatus() == TaskStatus.DONE)
+                    ? TaskStatus.DONE : TaskStatus.IN_PROGRESS);
+            assertEquals(expected, epic.getStatus());
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package ru.yandex.model;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
@@ -32,6 +35,19 @@ class TaskTest {
         assertEquals(task, anotherTask);
     }
 
+    @Test
+    void shouldReturnImmutableSnapshot() {
+        Task snapshot = task.snapshot();
+        assertTrue(snapshot.isSnapshot());
+        assertSame(snapshot, task.snapshot());
+        assertSame(snapshot, snapshot.snapshot());
+        assertThrows(UnsupportedOperationException.class,
+            () -> snapshot.setStatus(TaskStatus.DONE));
+        task.setStatus(TaskStatus.DONE);
+        assertEquals(TaskStatus.NEW, snapshot.getStatus());
+        assertEquals(TaskStatus.DONE, task.snapshot().getStatus());
+    }
+
     @Test
     void shouldNotCreateSharedReferencesWhenCloning() throws CloneNotSupportedException {
         Task clonedTask = task.clone();
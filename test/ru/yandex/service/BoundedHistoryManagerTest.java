@@ -0,0 +1,39 @@
+package ru.yandex.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import ru.yandex.model.Task;
+import ru.yandex.model.TaskStatus;
+
+class BoundedHistoryManagerTest extends HistoryManagerTest<BoundedHistoryManager> {
+
+    BoundedHistoryManagerTest() {
+        super(() -> new BoundedHistoryManager(10));
+    }
+
+    private static Task task(int id) {
+        return new Task("_t" + id + "name_", "_tdesc_", id, TaskStatus.NEW, Duration.ZERO,
+            LocalDateTime.MIN);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyViewedItems() {
+        BoundedHistoryManager historyManager = new BoundedHistoryManager(3);
+        historyManager.add(task(1));
+        historyManager.add(task(2));
+        historyManager.add(task(3));
+        historyManager.add(task(1));
+        historyManager.add(task(4));
+        assertEquals(List.of(3, 1, 4),
+            historyManager.getHistory().stream().map(Task::getId).toList());
+        historyManager.remove(1);
+        historyManager.add(task(5));
+        historyManager.add(task(6));
+        assertEquals(List.of(4, 5, 6),
+            historyManager.getHistory().stream().map(Task::getId).toList());
+    }
+}
@@ -0,0 +1,103 @@
+package ru.yandex.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import ru.yandex.model.Task;
+import ru.yandex.model.TaskStatus;
+
+class BufferedHistoryManagerTest extends HistoryManagerTest<BufferedHistoryManager> {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 2000;
+
+    BufferedHistoryManagerTest() {
+        super(() -> new BufferedHistoryManager(new InMemoryHistoryManager(), 4));
+    }
+
+    private static Task task(int id) {
+        return new Task("_t" + id + "name_", "_tdesc_", id, TaskStatus.NEW, Duration.ZERO,
+            LocalDateTime.MIN);
+    }
+
+    @Test
+    void shouldKeepOrderOfSingleThreadBeyondBufferSize() {
+        BufferedHistoryManager historyManager = factory.get();
+        for (int id = 0; id < 100; id++) {
+            historyManager.add(task(id));
+        }
+        historyManager.add(task(0));
+        List<Integer> expected = new ArrayList<>(IntStream.range(1, 100).boxed().toList());
+        expected.add(0);
+        assertEquals(expected, historyManager.getHistory().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void shouldKeepOrderOfSequentialViewsFromDifferentThreads() throws InterruptedException {
+        BufferedHistoryManager historyManager = new BufferedHistoryManager(
+            new InMemoryHistoryManager(), 8);
+        // каждый просмотр делается в своём потоке, поэтому просмотры попадают в разные буферы
+        for (int id = 0; id < 50; id++) {
+            Task task = task(id);
+            Thread thread = new Thread(() -> historyManager.add(task));
+            thread.start();
+            thread.join();
+        }
+        assertEquals(IntStream.range(0, 50).boxed().toList(),
+            historyManager.getHistory().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void shouldRejectNonPositiveStripeCount() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new BufferedHistoryManager(new InMemoryHistoryManager(), 0));
+    }
+
+    @Test
+    void shouldRecordOnlyViewedTasksUnderConcurrentAccess() throws Exception {
+        BufferedHistoryManager historyManager = factory.get();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ITERATIONS; i++) {
+                    historyManager.add(task(thread * 100 + i % 100));
+                    if (i % 500 == 0) {
+                        historyManager.getHistory();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // просмотры могут теряться, но история не содержит повторов и чужих задач
+        List<Integer> ids = historyManager.getHistory().stream().map(Task::getId).toList();
+        Set<Integer> unique = new HashSet<>(ids);
+        assertEquals(ids.size(), unique.size());
+        assertTrue(unique.stream().allMatch(id -> id >= 0 && id < THREADS * 100));
+        historyManager.remove(ids.getFirst());
+        assertTrue(historyManager.getHistory().stream()
+            .noneMatch(task -> task.getId() == ids.getFirst()));
+    }
+}
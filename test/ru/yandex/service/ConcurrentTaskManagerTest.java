@@ -0,0 +1,86 @@
+package ru.yandex.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import ru.yandex.model.Epic;
+import ru.yandex.model.Subtask;
+import ru.yandex.model.Task;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 500;
+
+    ConcurrentTaskManagerTest() {
+        super(ConcurrentTaskManager::new);
+    }
+
+    @Test
+    void shouldStayConsistentUnderConcurrentAccess() throws Exception {
+        ConcurrentTaskManager taskManager = factory.get();
+        LocalDateTime base = LocalDateTime.now();
+        ConcurrentLinkedQueue<Integer> ids = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<Integer> removedEpics = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ITERATIONS; i++) {
+                    long slot = (long) thread * ITERATIONS + i;
+                    int epicId = taskManager.addEpic(new Epic("_ename_", "_edesc_"));
+                    ids.add(epicId);
+                    ids.add(taskManager.addTask(new Task("_tname_", "_tdesc_",
+                        Duration.ofMinutes(10), base.plusHours(2 * slot))));
+                    // поток удаляет только свой эпик и только после этого, поэтому
+                    // TaskNotFoundException здесь означает ошибку и должна провалить тест
+                    ids.add(taskManager.addSubtask(new Subtask("_sname_", "_sdesc_", epicId,
+                        Duration.ofMinutes(10), base.plusHours(2 * slot + 1))));
+                    taskManager.getAllTasks();
+                    taskManager.getPrioritizedTasks();
+                    taskManager.getHistory();
+                    taskManager.getEpic(epicId);
+                    if (i % 10 == 0) {
+                        taskManager.removeEpic(epicId);
+                        removedEpics.add(epicId);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Set<Integer> uniqueIds = new HashSet<>(ids);
+        assertEquals(ids.size(), uniqueIds.size());
+        assertEquals(THREADS * ITERATIONS, taskManager.getAllTasks().size());
+        List<Subtask> subtasks = taskManager.getAllSubtasks();
+        assertEquals(THREADS * ITERATIONS - removedEpics.size(), subtasks.size());
+        for (Subtask subtask : subtasks) {
+            assertTrue(taskManager.getEpic(subtask.getEpicId()).getSubtasks()
+                .containsKey(subtask.getId()));
+        }
+        assertEquals(taskManager.getAllTasks().size() + subtasks.size(),
+            taskManager.getPrioritizedTasks().size());
+        assertTrue(taskManager.getHistory().stream()
+            .noneMatch(task -> removedEpics.contains(task.getId())));
+    }
+}
@@ -15,6 +15,9 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.yandex.exceptions.ManagerLoadException;
@@ -168,4 +171,103 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         assertThrows(ManagerSaveException.class,
             () -> new FileBackedTaskManager(Path.of("lol/kek/cheburek")));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldConvertCsvToBinaryAndLoadIt() throws IOException {
+        File binaryFile = File.createTempFile("test_save_file", ".bin");
+        FileBackedTaskManager.convertToBinary(testSaveFile.toFile(), binaryFile);
+        FileBackedTaskManager tm2 = FileBackedTaskManager.loadFromFile(binaryFile);
+        TaskManager tm1 = FileBackedTaskManager.loadFromFile(testSaveFile.toFile());
+        assertEquals(SnapshotFormat.BINARY, tm2.getSnapshotFormat());
+        assertEquals(tm1.getTask(0).getCSV(), tm2.getTask(0).getCSV());
+        assertEquals(tm1.getEpic(1).getCSV(), tm2.getEpic(1).getCSV());
+        assertEquals(tm1.getSubtask(2).getCSV(), tm2.getSubtask(2).getCSV());
+        assertTrue(tm2.getEpic(1).getSubtasks().containsKey(2));
+    }
+
+    @Test
+    void shouldKeepBinaryFormatWhenSaving() {
+        taskManager.setSnapshotFormat(SnapshotFormat.BINARY);
+        int e1 = taskManager.addEpic(new Epic("Эпик", "Описание, с запятой"));
+        int s1 = taskManager.addSubtask(new Subtask("Подзадача", "Описание", e1,
+            Duration.ofSeconds(90, 123), nowDateTime));
+        taskManager.updateSubtask(new Subtask("Подзадача", "Описание", s1, TaskStatus.DONE, e1,
+            Duration.ofSeconds(90, 123), nowDateTime));
+        FileBackedTaskManager tm2 = FileBackedTaskManager.loadFromFile(
+            taskManager.getSaveFile().toFile());
+        assertEquals("Описание, с запятой", tm2.getEpic(e1).getDescription());
+        assertEquals(TaskStatus.DONE, tm2.getEpic(e1).getStatus());
+        assertEquals(nowDateTime, tm2.getSubtask(s1).getStartTime());
+        assertEquals(Duration.ofSeconds(90, 123), tm2.getSubtask(s1).getDuration());
+        tm2.removeSubtask(s1);
+        FileBackedTaskManager tm3 = FileBackedTaskManager.loadFromFile(
+            taskManager.getSaveFile().toFile());
+        assertEquals(SnapshotFormat.BINARY, tm3.getSnapshotFormat());
+        assertTrue(tm3.getAllSubtasks().isEmpty());
+    }
+
+    @Test
+    void shouldThrowExceptionOnTruncatedBinaryFile() throws IOException {
+        taskManager.setSnapshotFormat(SnapshotFormat.BINARY);
+        taskManager.addTask(new Task("Задача", "Описание", Duration.ofHours(1), nowDateTime));
+        byte[] content = Files.readAllBytes(taskManager.getSaveFile());
+        Files.write(taskManager.getSaveFile(), Arrays.copyOf(content, content.length - 3));
+        assertThrows(ManagerLoadException.class,
+            () -> FileBackedTaskManager.loadFromFile(taskManager.getSaveFile().toFile()));
+    }
+
+    @Test
+    void shouldLoadSubtaskListedBeforeItsEpic() throws IOException {
+        List<String> lines = Files.readAllLines(testSaveFile);
+        Files.write(taskManager.getSaveFile(),
+            List.of(lines.get(0), lines.get(3), lines.get(2), lines.get(1)));
+        TaskManager tm2 = FileBackedTaskManager.loadFromFile(taskManager.getSaveFile().toFile());
+        assertTrue(tm2.getEpic(1).getSubtasks().containsKey(2));
+        assertEquals(2, tm2.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void shouldLoadLargeFileSplitIntoChunks() throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("id,type,name,status,description,duration,start_time,epic");
+        lines.add("0,EPIC,Эпик,NEW,Описание,PT0S,2024-12-02T18:00,");
+        for (int i = 1; i <= 20_000; i++) {
+            String start = LocalDateTime.of(2024, 12, 2, 18, 0).plusHours(i).toString();
+            lines.add(i % 2 == 0 ? i + ",TASK,Задача " + i + ",NEW,Описание,PT1H," + start + ","
+                : i + ",SUBTASK,Подзадача " + i + ",DONE,Описание,PT1H," + start + ",0");
+        }
+        Files.write(taskManager.getSaveFile(), lines);
+        assertTrue(Files.size(taskManager.getSaveFile()) > 1024 * 1024);
+        FileBackedTaskManager tm2 = FileBackedTaskManager.loadFromFile(
+            taskManager.getSaveFile().toFile());
+        assertEquals(10_000, tm2.getAllTasks().size());
+        assertEquals(10_000, tm2.getEpic(0).getSubtasks().size());
+        assertEquals(20_000, tm2.getPrioritizedTasks().size());
+        assertEquals("Задача 20000", tm2.getTask(20_000).getName());
+        assertEquals(TaskStatus.DONE, tm2.getEpic(0).getStatus());
+        assertEquals(20_001, tm2.addEpic(new Epic("Эпик", "Описание")));
+    }
+
+    @Test
+    void shouldThrowExceptionOnMalformedRow() throws IOException {
+        Files.write(taskManager.getSaveFile(), List.of(
+            "id,type,name,status,description,duration,start_time,epic", "0,TASK,Задача"));
+        assertThrows(ManagerLoadException.class,
+            () -> FileBackedTaskManager.loadFromFile(taskManager.getSaveFile().toFile()));
+    }
+
+    @Test
+    void shouldWriteSaveFileOnlyOnCommit() throws IOException {
+        taskManager.beginTransaction();
+        int e1 = taskManager.addEpic(new Epic("_e1name_", "_e1desc_"));
+        for (int i = 0; i < 20; i++) {
+            taskManager.addSubtask(new Subtask("_s" + i + "name_", "_sdesc_", e1,
+                Duration.ofHours(1), nowDateTime.plusHours(2L * i)));
+        }
+        assertEquals(0, Files.size(taskManager.getSaveFile()));
+        taskManager.commit();
+        FileBackedTaskManager tm2 = FileBackedTaskManager.loadFromFile(
+            taskManager.getSaveFile().toFile());
+        assertEquals(20, tm2.getEpic(e1).getSubtasks().size());
+    }
+}
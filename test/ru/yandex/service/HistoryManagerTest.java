@@ -2,6 +2,9 @@ package ru.yandex.service;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.Duration;
@@ -48,9 +51,21 @@ abstract class HistoryManagerTest<T extends HistoryManager> {
         historyManager.add(task1);
         historyManager.add(task2);
         List<Task> history = historyManager.getHistory();
-        history.get(1).setName("_anothertname_");
+        assertThrows(UnsupportedOperationException.class,
+            () -> history.get(1).setName("_anothertname_"));
         assertEquals("_t2name_", historyManager.getHistory().get(1).getName());
-        assertEquals("_anothertname_", history.get(1).getName());
+    }
+
+    @Test
+    void shouldReuseSnapshotsUntilTaskChanges() {
+        historyManager.add(task1);
+        Task first = historyManager.getHistory().get(0);
+        assertSame(first, historyManager.getHistory().get(0));
+        task1.setName("_anothertname_");
+        Task second = historyManager.getHistory().get(0);
+        assertNotSame(first, second);
+        assertEquals("_t1name_", first.getName());
+        assertEquals("_anothertname_", second.getName());
     }
 
     @Test
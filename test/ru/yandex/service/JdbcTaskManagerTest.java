@@ -0,0 +1,149 @@
+package ru.yandex.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.model.Epic;
+import ru.yandex.model.Subtask;
+import ru.yandex.model.Task;
+import ru.yandex.model.TaskStatus;
+
+class JdbcTaskManagerTest extends TaskManagerTest<JdbcTaskManager> {
+
+    private JdbcTaskManager taskManager;
+    private String url;
+    private LocalDateTime nowDateTime;
+
+    JdbcTaskManagerTest() {
+        super(() -> new JdbcTaskManager("jdbc:h2:mem:"));
+    }
+
+    @BeforeEach
+    void setUpForJdbcTaskManager() throws IOException {
+        url = "jdbc:h2:" + Files.createTempDirectory("test_db").resolve("tasks");
+        taskManager = new JdbcTaskManager(url);
+        nowDateTime = LocalDateTime.now();
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskManager.close();
+    }
+
+    private JdbcTaskManager reload() {
+        taskManager.close();
+        taskManager = new JdbcTaskManager(url);
+        return taskManager;
+    }
+
+    private int countRows() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url);
+            Statement statement = connection.createStatement();
+            ResultSet rows = statement.executeQuery("SELECT COUNT(*) FROM tasks")) {
+            rows.next();
+            return rows.getInt(1);
+        }
+    }
+
+    @Test
+    void shouldRestoreTasksFromDatabase() {
+        int e1 = taskManager.addEpic(new Epic("_e1name_", "_e1desc_"));
+        int t1 = taskManager.addTask(
+            new Task("_t1name_", "_t1desc_", Duration.ofSeconds(90, 5), nowDateTime));
+        int s1 = taskManager.addSubtask(new Subtask("_s1name_", "_s1desc_", e1,
+            Duration.ofHours(1), nowDateTime.plusHours(2)));
+        taskManager.updateSubtask(new Subtask("_s1name_", "_s1desc_", s1, TaskStatus.DONE, e1,
+            Duration.ofHours(1), nowDateTime.plusHours(2)));
+        taskManager.updateEpic(new Epic("_anotherename_", "_e1desc_", e1));
+        JdbcTaskManager tm2 = reload();
+        assertEquals("_anotherename_", tm2.getEpic(e1).getName());
+        assertEquals(TaskStatus.DONE, tm2.getEpic(e1).getStatus());
+        assertEquals(nowDateTime, tm2.getTask(t1).getStartTime());
+        assertEquals(Duration.ofSeconds(90, 5), tm2.getTask(t1).getDuration());
+        assertEquals(2, tm2.getPrioritizedTasks().size());
+        assertEquals(s1 + 1, tm2.addEpic(new Epic("_e2name_", "_e2desc_")));
+    }
+
+    @Test
+    void shouldDeleteEpicWithSubtasksInDatabase() throws SQLException {
+        int e1 = taskManager.addEpic(new Epic("_e1name_", "_e1desc_"));
+        int e2 = taskManager.addEpic(new Epic("_e2name_", "_e2desc_"));
+        taskManager.addSubtask(new Subtask("_s1name_", "_s1desc_", e1, Duration.ofHours(1),
+            nowDateTime));
+        taskManager.addSubtask(new Subtask("_s2name_", "_s2desc_", e1, Duration.ofHours(1),
+            nowDateTime.plusHours(2)));
+        taskManager.addSubtask(new Subtask("_s3name_", "_s3desc_", e2, Duration.ofHours(1),
+            nowDateTime.plusHours(4)));
+        taskManager.removeEpic(e1);
+        assertEquals(2, countRows());
+        taskManager.clearSubtasks();
+        assertEquals(1, countRows());
+        assertTrue(reload().getAllSubtasks().isEmpty());
+        assertEquals(1, taskManager.getAllEpics().size());
+    }
+
+    @Test
+    void shouldFilterByStatusAndStartTimeInDatabase() {
+        int e1 = taskManager.addEpic(new Epic("_e1name_", "_e1desc_"));
+        int t1 = taskManager.addTask(new Task("_t1name_", "_t1desc_", 0, TaskStatus.DONE,
+            Duration.ofHours(1), nowDateTime.plusHours(4)));
+        int t2 = taskManager.addTask(new Task("_t2name_", "_t2desc_", Duration.ofHours(1),
+            nowDateTime));
+        int s1 = taskManager.addSubtask(new Subtask("_s1name_", "_s1desc_", e1,
+            Duration.ofHours(1), nowDateTime.plusHours(2)));
+        taskManager.updateSubtask(new Subtask("_s1name_", "_s1desc_", s1, TaskStatus.DONE, e1,
+            Duration.ofHours(1), nowDateTime.plusHours(2)));
+        assertEquals(List.of(t1, s1), taskManager.getTasksByStatus(TaskStatus.DONE).stream()
+            .map(Task::getId).toList());
+        assertEquals(List.of(t2), taskManager.getTasksByStatus(TaskStatus.NEW).stream()
+            .map(Task::getId).toList());
+        assertEquals(List.of(t2, s1), taskManager.getTasksStartingBetween(nowDateTime,
+            nowDateTime.plusHours(4)).stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void shouldInsertBatchInDatabase() throws SQLException {
+        int e1 = taskManager.addEpic(new Epic("_e1name_", "_e1desc_"));
+        taskManager.addTasks(List.of(
+            new Task("_t1name_", "_t1desc_", Duration.ofHours(1), nowDateTime),
+            new Task("_t2name_", "_t2desc_", Duration.ofHours(1), nowDateTime.plusHours(2))));
+        taskManager.addSubtasks(List.of(new Subtask("_s1name_", "_s1desc_", e1,
+            Duration.ofHours(1), nowDateTime.plusHours(4))));
+        assertEquals(4, countRows());
+        JdbcTaskManager tm2 = reload();
+        assertEquals(2, tm2.getAllTasks().size());
+        assertEquals(1, tm2.getEpic(e1).getSubtasks().size());
+    }
+
+    @Test
+    void shouldWriteTransactionToDatabaseOnCommitOnly() throws SQLException {
+        int t1 = taskManager.addTask(new Task("_t1name_", "_t1desc_", Duration.ofHours(1),
+            nowDateTime));
+        taskManager.beginTransaction();
+        int e1 = taskManager.addEpic(new Epic("_e1name_", "_e1desc_"));
+        taskManager.addSubtask(new Subtask("_s1name_", "_s1desc_", e1, Duration.ofHours(1),
+            nowDateTime.plusHours(2)));
+        taskManager.removeTask(t1);
+        assertEquals(1, countRows());
+        taskManager.commit();
+        assertEquals(2, countRows());
+        taskManager.beginTransaction();
+        taskManager.clearEpics();
+        taskManager.rollback();
+        assertEquals(2, countRows());
+        assertEquals(1, reload().getEpic(e1).getSubtasks().size());
+    }
+}
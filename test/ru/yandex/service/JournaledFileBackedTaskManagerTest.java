@@ -0,0 +1,324 @@
+package ru.yandex.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.exceptions.ManagerLoadException;
+import ru.yandex.exceptions.ManagerSaveException;
+import ru.yandex.model.Epic;
+import ru.yandex.model.Subtask;
+import ru.yandex.model.Task;
+import ru.yandex.model.TaskStatus;
+
+class JournaledFileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
+
+    private final Path testSaveFile = Paths.get(
+        "test/ru/yandex/service/resource/test_save_file.txt");
+    private FileBackedTaskManager taskManager;
+    private LocalDateTime nowDateTime;
+
+    JournaledFileBackedTaskManagerTest() {
+        super(() -> {
+            try {
+                return new FileBackedTaskManager(
+                    File.createTempFile("test_save_file", ".tmp").toPath(),
+                    File.createTempFile("test_journal_file", ".tmp").toPath());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    @BeforeEach
+    void setUpForJournaledTaskManager() {
+        taskManager = factory.get();
+        nowDateTime = LocalDateTime.now();
+    }
+
+    private FileBackedTaskManager reload() {
+        return FileBackedTaskManager.loadFromFile(taskManager.getSaveFile().toFile(),
+            taskManager.getJournalFile().toFile());
+    }
+
+    @Test
+    void shouldAppendOneRecordPerChangeWithoutRewritingSaveFile() throws IOException {
+        int e1 = taskManager.addEpic(new Epic("_e1name_", "_e1desc_"));
+        taskManager.addTask(new Task("_t1name_", "_t1desc_", Duration.ofHours(1), nowDateTime));
+        taskManager.addSubtask(new Subtask("_s1name_", "_s1desc_", e1, Duration.ofHours(1),
+            nowDateTime.plusHours(2)));
+        taskManager.updateEpic(new Epic("_anotherename_", "_e1desc_", e1));
+        assertEquals(0, Files.size(taskManager.getSaveFile()));
+        assertEquals(4, Files.readAllLines(taskManager.getJournalFile()).size());
+    }
+
+    @Test
+    void shouldNotJournalRemovalOfMissingId() throws IOException {
+        taskManager.removeTask(100);
+        taskManager.removeEpic(100);
+        taskManager.removeSubtask(100);
+        assertEquals(0, Files.size(taskManager.getJournalFile()));
+    }
+
+    @Test
+    void shouldRestoreStateByReplayingJournal() {
+        int e1 = taskManager.addEpic(new Epic("_e1name_", "_e1desc_"));
+        int t1 = taskManager.addTask(
+            new Task("_t1name_", "_t1desc_", Duration.ofHours(1), nowDateTime));
+        int t2 = taskManager.addTask(
+            new Task("_t2name_", "_t2desc_", Duration.ofHours(1), nowDateTime.plusHours(4)));
+        int s1 = taskManager.addSubtask(new Subtask("_s1name_", "_s1desc_", e1,
+            Duration.ofHours(1), nowDateTime.plusHours(2)));
+        taskManager.updateTask(new Task("_anothertname_", "_t1desc_", t1, TaskStatus.DONE,
+            Duration.ofHours(1), nowDateTime));
+        taskManager.updateSubtask(new Subtask("_s1name_", "_s1desc_", s1, TaskStatus.DONE, e1,
+            Duration.ofHours(1), nowDateTime.plusHours(2)));
+        taskManager.updateEpic(new Epic("_anotherename_", "_e1desc_", e1));
+        taskManager.removeTask(t2);
+        FileBackedTaskManager tm2 = reload();
+        assertEquals("_anothertname_", tm2.getTask(t1).getName());
+        assertEquals(TaskStatus.DONE, tm2.getTask(t1).getStatus());
+        assertEquals("_anotherename_", tm2.getEpic(e1).getName());
+        assertEquals(TaskStatus.DONE, tm2.getEpic(e1).getStatus());
+        assertEquals(1, tm2.getAllTasks().size());
+        assertEquals(2, tm2.getPrioritizedTasks().size());
+        assertEquals(t2 + 2, tm2.addEpic(new Epic("_e2name_", "_e2desc_")));
+    }
+
+    @Test
+    void shouldReplayCascadingRemovalsAndClears() {
+        int e1 = taskManager.addEpic(new Epic("_e1name_", "_e1desc_"));
+        int e2 = taskManager.addEpic(new Epic("_e2name_", "_e2desc_"));
+        taskManager.addSubtask(new Subtask("_s1name_", "_s1desc_", e1, Duration.ofHours(1),
+            nowDateTime));
+        taskManager.addSubtask(new Subtask("_s2name_", "_s2desc_", e2, Duration.ofHours(1),
+            nowDateTime.plusHours(2)));
+        taskManager.addTask(new Task("_t1name_", "_t1desc_", Duration.ofHours(1),
+            nowDateTime.plusHours(4)));
+        taskManager.removeEpic(e1);
+        taskManager.clearTasks();
+        FileBackedTaskManager tm2 = reload();
+        assertTrue(tm2.getAllTasks().isEmpty());
+        assertEquals(1, tm2.getAllEpics().size());
+        assertEquals(1, tm2.getAllSubtasks().size());
+        assertEquals(e2, tm2.getAllSubtasks().getFirst().getEpicId());
+    }
+
+    @Test
+    void shouldUseExistingSaveFileAsBaseImage() throws IOException {
+        Path saveFile = File.createTempFile("test_save_file", ".tmp").toPath();
+        Path journalFile = File.createTempFile("test_journal_file", ".tmp").toPath();
+        Files.copy(testSaveFile, saveFile, StandardCopyOption.REPLACE_EXISTING);
+        FileBackedTaskManager tm1 = FileBackedTaskManager.loadFromFile(saveFile.toFile(),
+            journalFile.toFile());
+        tm1.removeTask(0);
+        tm1.addSubtask(new Subtask("_s2name_", "_s2desc_", 1, Duration.ofHours(1), nowDateTime));
+        FileBackedTaskManager tm2 = FileBackedTaskManager.loadFromFile(saveFile.toFile(),
+            journalFile.toFile());
+        assertTrue(tm2.getAllTasks().isEmpty());
+        assertEquals(2, tm2.getEpic(1).getSubtasks().size());
+        assertEquals("_s2name_", tm2.getSubtask(3).getName());
+    }
+
+    @Test
+    void shouldIgnoreIncompleteLastRecord() throws IOException {
+        taskManager.addTask(new Task("_t1name_", "_t1desc_", Duration.ofHours(1), nowDateTime));
+        Files.writeString(taskManager.getJournalFile(), "PUT,1,TASK,_t2na",
+            StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        FileBackedTaskManager tm2 = reload();
+        assertEquals(1, tm2.getAllTasks().size());
+    }
+
+    @Test
+    void shouldThrowExceptionOnCorruptedJournal() throws IOException {
+        Files.writeString(taskManager.getJournalFile(), "XXX,42\n", StandardCharsets.UTF_8);
+        assertThrows(ManagerLoadException.class, this::reload);
+    }
+
+    @Test
+    void shouldCompactJournalIntoSaveFile() throws IOException {
+        taskManager.setCompactionThreshold(5, 0);
+        int e1 = taskManager.addEpic(new Epic("_e1name_", "_e1desc_"));
+        for (int i = 0; i < 12; i++) {
+            taskManager.addSubtask(new Subtask("_sname_", "_sdesc_", e1, Duration.ofHours(1),
+                nowDateTime.plusHours(2 * i)));
+            taskManager.awaitCompaction();
+        }
+        taskManager.removeSubtask(1);
+        taskManager.awaitCompaction();
+        assertEquals(4, Files.readAllLines(taskManager.getJournalFile()).size());
+        assertEquals(11, Files.readAllLines(taskManager.getSaveFile()).size());
+        assertFalse(Files.exists(Path.of(taskManager.getJournalFile() + ".compacting")));
+        FileBackedTaskManager tm2 = reload();
+        assertEquals(11, tm2.getAllSubtasks().size());
+        assertEquals(11, tm2.getEpic(e1).getSubtasks().size());
+        assertEquals(13, tm2.addTask(new Task("_t1name_", "_t1desc_", Duration.ZERO,
+            nowDateTime.minusHours(1))));
+    }
+
+    @Test
+    void shouldRecoverFromCompactionInterruptedBeforeSnapshotWasWritten() throws IOException {
+        int e1 = taskManager.addEpic(new Epic("_e1name_", "_e1desc_"));
+        taskManager.addSubtask(new Subtask("_s1name_", "_s1desc_", e1, Duration.ofHours(1),
+            nowDateTime));
+        Path compacting = Path.of(taskManager.getJournalFile() + ".compacting");
+        Files.move(taskManager.getJournalFile(), compacting);
+        Files.writeString(taskManager.getJournalFile(), "DEL," + e1 + "\n");
+        Files.writeString(Path.of(taskManager.getSaveFile() + ".tmp"), "garbage");
+        FileBackedTaskManager tm2 = reload();
+        assertTrue(tm2.getAllEpics().isEmpty() && tm2.getAllSubtasks().isEmpty());
+        assertFalse(Files.exists(compacting));
+        assertFalse(Files.exists(Path.of(taskManager.getSaveFile() + ".tmp")));
+        assertEquals(3, Files.readAllLines(taskManager.getSaveFile()).size());
+        assertTrue(reload().getAllEpics().isEmpty());
+    }
+
+    @Test
+    void shouldNotReplayCompactedSegmentOverNewSnapshot() throws IOException {
+        int e1 = taskManager.addEpic(new Epic("_e1name_", "_e1desc_"));
+        taskManager.addSubtask(new Subtask("_s1name_", "_s1desc_", e1, Duration.ofHours(1),
+            nowDateTime));
+        taskManager.removeEpic(e1);
+        Path compacted = Path.of(taskManager.getJournalFile() + ".compacted");
+        Files.move(taskManager.getJournalFile(), compacted);
+        Files.createFile(taskManager.getJournalFile());
+        Files.writeString(Path.of(taskManager.getSaveFile() + ".tmp"),
+            "id,type,name,status,description,duration,start_time,epic\n");
+        FileBackedTaskManager tm2 = reload();
+        assertTrue(tm2.getAllEpics().isEmpty() && tm2.getAllSubtasks().isEmpty());
+        assertFalse(Files.exists(compacted));
+        assertFalse(Files.exists(Path.of(taskManager.getSaveFile() + ".tmp")));
+    }
+
+    @Test
+    void shouldBatchChangesInGroupCommitMode() throws IOException {
+        Path saveFile = File.createTempFile("test_save_file", ".tmp").toPath();
+        Path journalFile = File.createTempFile("test_journal_file", ".tmp").toPath();
+        FileBackedTaskManager tm1 = new FileBackedTaskManager(saveFile,
+            new TaskJournal(journalFile, DurabilityPolicy.GROUP_COMMIT, 20));
+        int e1 = tm1.addEpic(new Epic("_e1name_", "_e1desc_"));
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            LocalDateTime start = nowDateTime.plusDays(i);
+            threads[i] = new Thread(() -> {
+                synchronized (tm1) {
+                    tm1.addSubtask(new Subtask("_sname_", "_sdesc_", e1, Duration.ofHours(1),
+                        start));
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        assertEquals(5, Files.readAllLines(journalFile).size());
+        JournalStats stats = tm1.getJournalStats();
+        assertEquals(5, stats.getRecords());
+        assertEquals(0, stats.getQueueDepth());
+        assertTrue(stats.getBatches() <= 5);
+        tm1.close();
+        FileBackedTaskManager tm2 = FileBackedTaskManager.loadFromFile(saveFile.toFile(),
+            journalFile.toFile());
+        assertEquals(4, tm2.getEpic(e1).getSubtasks().size());
+    }
+
+    @Test
+    void shouldWriteAsyncChangesOnFlush() throws IOException {
+        Path saveFile = File.createTempFile("test_save_file", ".tmp").toPath();
+        Path journalFile = File.createTempFile("test_journal_file", ".tmp").toPath();
+        FileBackedTaskManager tm1 = new FileBackedTaskManager(saveFile,
+            new TaskJournal(journalFile, DurabilityPolicy.ASYNC, 10_000));
+        for (int i = 0; i < 10; i++) {
+            tm1.addTask(new Task("_tname_", "_tdesc_", Duration.ofHours(1),
+                nowDateTime.plusHours(2 * i)));
+        }
+        assertEquals(10, tm1.getJournalStats().getQueueDepth());
+        tm1.flush();
+        JournalStats stats = tm1.getJournalStats();
+        assertEquals(1, stats.getBatches());
+        assertEquals(10, stats.getMaxBatchSize());
+        assertEquals(0, stats.getQueueDepth());
+        assertEquals(10, FileBackedTaskManager.loadFromFile(saveFile.toFile(),
+            journalFile.toFile()).getAllTasks().size());
+        tm1.close();
+        assertThrows(ManagerSaveException.class, () -> tm1.addTask(
+            new Task("_tname_", "_tdesc_", Duration.ZERO, nowDateTime.minusHours(1))));
+    }
+
+    @Test
+    void shouldKeepQueuedChangesWhenCompacting() throws IOException {
+        Path saveFile = File.createTempFile("test_save_file", ".tmp").toPath();
+        Path journalFile = File.createTempFile("test_journal_file", ".tmp").toPath();
+        FileBackedTaskManager tm1 = new FileBackedTaskManager(saveFile,
+            new TaskJournal(journalFile, DurabilityPolicy.ASYNC, 10_000));
+        tm1.setCompactionThreshold(3, 0);
+        for (int i = 0; i < 7; i++) {
+            tm1.addTask(new Task("_tname_", "_tdesc_", Duration.ofHours(1),
+                nowDateTime.plusHours(2 * i)));
+            tm1.awaitCompaction();
+        }
+        tm1.close();
+        assertEquals(7, FileBackedTaskManager.loadFromFile(saveFile.toFile(),
+            journalFile.toFile()).getAllTasks().size());
+    }
+
+    @Test
+    void shouldJournalBatchAndRestoreIt() throws IOException {
+        int e1 = taskManager.addEpic(new Epic("_e1name_", "_e1desc_"));
+        taskManager.addTasks(List.of(
+            new Task("_t1name_", "_t1desc_", Duration.ofHours(1), nowDateTime),
+            new Task("_t2name_", "_t2desc_", Duration.ofHours(1), nowDateTime.plusHours(2))));
+        taskManager.addSubtasks(List.of(new Subtask("_s1name_", "_s1desc_", e1,
+            Duration.ofHours(1), nowDateTime.plusHours(4))));
+        assertEquals(4, Files.readAllLines(taskManager.getJournalFile()).size());
+        FileBackedTaskManager tm2 = reload();
+        assertEquals(2, tm2.getAllTasks().size());
+        assertEquals(1, tm2.getEpic(e1).getSubtasks().size());
+        assertEquals(3, tm2.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void shouldJournalCommittedTransactionOnlyAndRestoreIt() throws IOException {
+        int e1 = taskManager.addEpic(new Epic("_e1name_", "_e1desc_"));
+        int t1 = taskManager.addTask(new Task("_t1name_", "_t1desc_", Duration.ofHours(1),
+            nowDateTime));
+        int s1 = taskManager.addSubtask(new Subtask("_s1name_", "_s1desc_", e1,
+            Duration.ofHours(1), nowDateTime.plusHours(2)));
+        taskManager.inTransaction(() -> {
+            taskManager.removeEpic(e1);
+            int e2 = taskManager.addEpic(new Epic("_e2name_", "_e2desc_"));
+            taskManager.addSubtask(new Subtask("_s2name_", "_s2desc_", e2, Duration.ofHours(1),
+                nowDateTime.plusHours(2)));
+            taskManager.updateTask(new Task("_anothertname_", "_t1desc_", t1, TaskStatus.DONE,
+                Duration.ofHours(1), nowDateTime));
+        });
+        taskManager.beginTransaction();
+        taskManager.removeTask(t1);
+        taskManager.rollback();
+        // 3 добавления до транзакции и по записи на каждый из 5 изменённых в ней элементов
+        assertEquals(8, Files.readAllLines(taskManager.getJournalFile()).size());
+        FileBackedTaskManager tm2 = reload();
+        assertEquals("_anothertname_", tm2.getTask(t1).getName());
+        assertTrue(tm2.getAllEpics().stream().noneMatch(epic -> epic.getId() == e1));
+        assertTrue(tm2.getAllSubtasks().stream().noneMatch(subtask -> subtask.getId() == s1));
+        assertEquals(1, tm2.getAllEpics().getFirst().getSubtasks().size());
+    }
+}
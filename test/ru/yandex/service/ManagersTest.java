@@ -4,6 +4,10 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import org.junit.jupiter.api.Test;
@@ -36,4 +40,26 @@ class ManagersTest {
         historyManager.add(task);
         assertTrue(historyManager.getHistory().contains(task));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldReturnWorkingRecordFileTaskManager() throws IOException {
+        Path file = File.createTempFile("test_record_file", ".tmp").toPath();
+        Files.delete(file);
+        TaskManager taskManager = Managers.getRecordFileBacked(file);
+        int taskId = taskManager.addTask(
+            new Task("_tname_", "_tdesc_", Duration.ZERO, LocalDateTime.MIN));
+        ((RecordFileTaskManager) taskManager).close();
+        assertEquals("_tname_", Managers.getRecordFileBacked(file).getTask(taskId).getName());
+    }
+
+    @Test
+    void shouldReturnBoundedHistoryManager() {
+        HistoryManager historyManager = Managers.getDefaultHistory(1);
+        historyManager.add(new Task("_t1name_", "_t1desc_", 1, TaskStatus.NEW, Duration.ZERO,
+            LocalDateTime.MIN));
+        historyManager.add(new Task("_t2name_", "_t2desc_", 2, TaskStatus.NEW, Duration.ZERO,
+            LocalDateTime.MIN));
+        assertEquals(1, historyManager.getHistory().size());
+        assertEquals(2, historyManager.getHistory().getFirst().getId());
+    }
+}
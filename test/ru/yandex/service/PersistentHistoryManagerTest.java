@@ -0,0 +1,192 @@
+package ru.yandex.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+import ru.yandex.model.Epic;
+import ru.yandex.model.Task;
+import ru.yandex.model.TaskStatus;
+
+class PersistentHistoryManagerTest extends HistoryManagerTest<PersistentHistoryManager> {
+
+    PersistentHistoryManagerTest() {
+        super(() -> new PersistentHistoryManager(tempFile()));
+    }
+
+    private static Path tempFile() {
+        try {
+            return File.createTempFile("test_history", ".log").toPath();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Task task(int id) {
+        return new Task("_t" + id + "name_", "_tdesc_", id, TaskStatus.NEW, Duration.ZERO,
+            LocalDateTime.MIN);
+    }
+
+    private static List<Integer> ids(HistoryManager historyManager) {
+        return historyManager.getHistory().stream().map(Task::getId).toList();
+    }
+
+    @Test
+    void shouldRestoreHistoryFromLog() {
+        Path log = tempFile();
+        try (PersistentHistoryManager historyManager = new PersistentHistoryManager(log)) {
+            historyManager.add(task(1));
+            historyManager.add(task(2));
+            historyManager.add(task(3));
+            historyManager.add(task(1));
+            historyManager.remove(2);
+        }
+        try (PersistentHistoryManager historyManager = new PersistentHistoryManager(log)) {
+            assertEquals(List.of(), ids(historyManager));
+            historyManager.restore(id -> id == 3 ? null : task(id));
+            assertEquals(List.of(1), ids(historyManager));
+        }
+    }
+
+    @Test
+    void shouldCompactLogToCurrentHistory() throws IOException {
+        Path log = tempFile();
+        try (PersistentHistoryManager historyManager = new PersistentHistoryManager(log,
+            new BoundedHistoryManager(3))) {
+            historyManager.setCompactionThreshold(50);
+            for (int i = 0; i < 200; i++) {
+                historyManager.add(task(i % 10));
+            }
+            historyManager.awaitCompaction();
+            historyManager.flush();
+            assertTrue(Files.size(log) < 200 * "VIEW,0\n".length());
+            assertEquals(List.of(7, 8, 9), ids(historyManager));
+        }
+        Path base = log.resolveSibling(log.getFileName() + ".base");
+        assertTrue(Files.exists(base));
+        assertFalse(Files.exists(log.resolveSibling(log.getFileName() + ".compacting")));
+        try (PersistentHistoryManager historyManager = new PersistentHistoryManager(log,
+            new BoundedHistoryManager(3))) {
+            historyManager.restore(PersistentHistoryManagerTest::task);
+            assertEquals(List.of(7, 8, 9), ids(historyManager));
+        }
+    }
+
+    @Test
+    void shouldFinishInterruptedCompactionOnLoad() throws IOException {
+        Path log = tempFile();
+        Files.writeString(log.resolveSibling(log.getFileName() + ".base"), "VIEW,1\nVIEW,2\n");
+        Files.writeString(log.resolveSibling(log.getFileName() + ".compacting"), "VIEW,1\n");
+        Files.writeString(log, "VIEW,3\n");
+        try (PersistentHistoryManager historyManager = new PersistentHistoryManager(log)) {
+            historyManager.restore(PersistentHistoryManagerTest::task);
+            assertEquals(List.of(2, 1, 3), ids(historyManager));
+        }
+        assertFalse(Files.exists(log.resolveSibling(log.getFileName() + ".compacting")));
+    }
+
+    @Test
+    void shouldRestoreHistoryWithFileBackedManager() throws IOException {
+        Path saveFile = tempFile();
+        Path log = tempFile();
+        int taskId, epicId;
+        try (PersistentHistoryManager history = new PersistentHistoryManager(log)) {
+            FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(saveFile.toFile(),
+                null, history);
+            taskId = manager.addTask(new Task("_tname_", "_tdesc_", Duration.ZERO,
+                LocalDateTime.MIN));
+            epicId = manager.addEpic(new Epic("_ename_", "_edesc_"));
+            manager.getEpic(epicId);
+            manager.getTask(taskId);
+        }
+        try (PersistentHistoryManager history = new PersistentHistoryManager(log)) {
+            FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(saveFile.toFile(),
+                null, history);
+            assertEquals(List.of(epicId, taskId),
+                manager.getHistory().stream().map(Task::getId).toList());
+            manager.removeTask(taskId);
+        }
+        try (PersistentHistoryManager history = new PersistentHistoryManager(log)) {
+            FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(saveFile.toFile(),
+                null, history);
+            assertEquals(List.of(epicId),
+                manager.getHistory().stream().map(Task::getId).toList());
+        }
+    }
+
+    @Test
+    void shouldNotRewriteHistoryWhenReplayingJournaledRemovals() {
+        Path saveFile = tempFile();
+        Path journalFile = tempFile();
+        Path log = tempFile();
+        try (PersistentHistoryManager history = new PersistentHistoryManager(log)) {
+            FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(saveFile.toFile(),
+                new TaskJournal(journalFile), history);
+            int taskId = manager.addTask(new Task("_tname_", "_tdesc_", Duration.ZERO,
+                LocalDateTime.MIN));
+            manager.getTask(taskId);
+            manager.removeTask(taskId);
+            manager.close();
+        }
+        int records = TaskJournal.readRecords(log).size();
+        for (int i = 0; i < 2; i++) {
+            try (PersistentHistoryManager history = new PersistentHistoryManager(log)) {
+                FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(
+                    saveFile.toFile(), new TaskJournal(journalFile), history);
+                assertEquals(List.of(), manager.getHistory());
+                manager.close();
+            }
+        }
+        assertEquals(records, TaskJournal.readRecords(log).size());
+    }
+
+    @Test
+    void shouldBatchViewsOfConcurrentThreadsInGroupCommitMode() throws InterruptedException {
+        Path log = tempFile();
+        TaskJournal journal = new TaskJournal(log, DurabilityPolicy.GROUP_COMMIT, 50);
+        try (PersistentHistoryManager history = new PersistentHistoryManager(
+            Managers.getDefaultHistory(), journal)) {
+            TaskManager manager = new ConcurrentTaskManager(history);
+            List<Integer> taskIds = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                taskIds.add(manager.addTask(new Task("_tname_", "_tdesc_", Duration.ZERO,
+                    LocalDateTime.MIN.plusHours(i))));
+            }
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            for (int taskId : taskIds) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    manager.getTask(taskId);
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            // каждый просмотр дождался сброса на диск, но ждали они вне блокировки истории, поэтому
+            // записи разных потоков попали в общие пачки
+            JournalStats stats = journal.getStats();
+            assertEquals(8, stats.getRecords());
+            assertTrue(stats.getMaxBatchSize() > 1);
+            assertEquals(8, TaskJournal.readRecords(log).size());
+        }
+    }
+}
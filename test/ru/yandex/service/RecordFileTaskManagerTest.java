@@ -0,0 +1,203 @@
+package ru.yandex.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.exceptions.ManagerLoadException;
+import ru.yandex.model.Epic;
+import ru.yandex.model.Subtask;
+import ru.yandex.model.Task;
+import ru.yandex.model.TaskStatus;
+
+class RecordFileTaskManagerTest extends TaskManagerTest<RecordFileTaskManager> {
+
+    private RecordFileTaskManager taskManager;
+    private Path file;
+    private LocalDateTime nowDateTime;
+
+    RecordFileTaskManagerTest() {
+        super(() -> {
+            try {
+                Path file = File.createTempFile("test_record_file", ".tmp").toPath();
+                Files.delete(file);
+                return new RecordFileTaskManager(file);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    @BeforeEach
+    void setUpForRecordFileTaskManager() throws IOException {
+        file = File.createTempFile("test_record_file", ".tmp").toPath();
+        Files.delete(file);
+        taskManager = new RecordFileTaskManager(file);
+        nowDateTime = LocalDateTime.now();
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskManager.close();
+    }
+
+    private RecordFileTaskManager reload() {
+        taskManager.close();
+        taskManager = RecordFileTaskManager.loadFromFile(file.toFile());
+        return taskManager;
+    }
+
+    @Test
+    void shouldRestoreTasksFromRecordFile() {
+        int e1 = taskManager.addEpic(new Epic("_e1name_", "_e1desc_"));
+        int t1 = taskManager.addTask(
+            new Task("_t1name_", "_t1desc_", Duration.ofSeconds(90, 5), nowDateTime));
+        int s1 = taskManager.addSubtask(new Subtask("_s1name_", "_s1desc_", e1,
+            Duration.ofHours(1), nowDateTime.plusHours(2)));
+        taskManager.updateSubtask(new Subtask("_s1name_", "_s1desc_", s1, TaskStatus.DONE, e1,
+            Duration.ofHours(1), nowDateTime.plusHours(2)));
+        taskManager.updateEpic(new Epic("_anotherename_", "_e1desc_", e1));
+        RecordFileTaskManager tm2 = reload();
+        assertEquals("_anotherename_", tm2.getEpic(e1).getName());
+        assertEquals(TaskStatus.DONE, tm2.getEpic(e1).getStatus());
+        assertEquals(nowDateTime, tm2.getTask(t1).getStartTime());
+        assertEquals(Duration.ofSeconds(90, 5), tm2.getTask(t1).getDuration());
+        assertEquals(2, tm2.getPrioritizedTasks().size());
+        assertEquals(s1 + 1, tm2.addTask(new Task("_t2name_", "_t2desc_", Duration.ZERO,
+            nowDateTime.minusHours(1))));
+    }
+
+    @Test
+    void shouldUpdateRecordsInPlace() throws IOException {
+        int t1 = taskManager.addTask(
+            new Task("_t1name_", "_t1desc_", Duration.ofHours(1), nowDateTime));
+        long size = Files.size(file);
+        for (int i = 0; i < 10; i++) {
+            taskManager.updateTask(new Task("_t1name" + i + "_", "_t1desc_", t1,
+                TaskStatus.IN_PROGRESS, Duration.ofHours(1), nowDateTime));
+        }
+        assertEquals(size, Files.size(file));
+        assertEquals(1, taskManager.getSlotCount());
+        assertEquals("_t1name9_", reload().getTask(t1).getName());
+    }
+
+    @Test
+    void shouldReuseSlotsOfRemovedTasks() {
+        int e1 = taskManager.addEpic(new Epic("_e1name_", "_e1desc_"));
+        taskManager.addSubtask(new Subtask("_s1name_", "_s1desc_", e1, Duration.ofHours(1),
+            nowDateTime));
+        taskManager.addSubtask(new Subtask("_s2name_", "_s2desc_", e1, Duration.ofHours(1),
+            nowDateTime.plusHours(2)));
+        taskManager.removeEpic(e1);
+        assertEquals(3, taskManager.getFreeSlotCount());
+        assertEquals(3, reload().getFreeSlotCount());
+        taskManager.addTask(new Task("_t1name_", "_t1desc_", Duration.ofHours(1), nowDateTime));
+        assertEquals(3, taskManager.getSlotCount());
+        assertEquals(2, taskManager.getFreeSlotCount());
+        RecordFileTaskManager tm2 = reload();
+        assertTrue(tm2.getAllEpics().isEmpty() && tm2.getAllSubtasks().isEmpty());
+        assertEquals(1, tm2.getAllTasks().size());
+    }
+
+    @Test
+    void shouldNotReuseSlotFreedInSameTransactionBeforeSync() {
+        int t1 = taskManager.addTask(
+            new Task("_t1name_", "_t1desc_", Duration.ofHours(1), nowDateTime));
+        taskManager.inTransaction(() -> {
+            taskManager.removeTask(t1);
+            taskManager.addTask(new Task("_t2name_", "_t2desc_", Duration.ofHours(1),
+                nowDateTime.plusHours(2)));
+        });
+        assertEquals(2, taskManager.getSlotCount());
+        assertEquals(1, taskManager.getFreeSlotCount());
+        taskManager.addTask(new Task("_t3name_", "_t3desc_", Duration.ofHours(1),
+            nowDateTime.plusHours(4)));
+        assertEquals(2, taskManager.getSlotCount());
+        assertEquals(2, reload().getAllTasks().size());
+    }
+
+    @Test
+    void shouldStoreLongStringsInOverflowArea() {
+        String description = "Очень длинное описание. ".repeat(100);
+        int t1 = taskManager.addTask(
+            new Task("_t1name_", description, Duration.ofHours(1), nowDateTime));
+        taskManager.addTask(new Task("_t2name_", "_t2desc_", Duration.ofHours(1),
+            nowDateTime.plusHours(2)));
+        assertEquals(description, reload().getTask(t1).getDescription());
+        assertEquals(2, taskManager.getSlotCount());
+    }
+
+    @Test
+    void shouldThrowLoadExceptionOnBadStringLength() throws IOException {
+        taskManager.addTask(new Task("_t1name_", "Длинное описание. ".repeat(50),
+            Duration.ofHours(1), nowDateTime));
+        taskManager.close();
+        // длина имени в файле переполнения становится отрицательной, контрольная сумма строк
+        // пересчитывается, чтобы повреждение дошло до разбора строк
+        Path overflow = file.resolveSibling(file.getFileName() + ".overflow");
+        ByteBuffer strings = ByteBuffer.wrap(Files.readAllBytes(overflow));
+        strings.putInt(Integer.BYTES, -5);
+        CRC32 crc = new CRC32();
+        crc.update(strings.slice(Integer.BYTES, strings.capacity() - Integer.BYTES));
+        strings.putInt(0, (int) crc.getValue());
+        Files.write(overflow, strings.array());
+        assertThrows(ManagerLoadException.class,
+            () -> RecordFileTaskManager.loadFromFile(file.toFile()));
+    }
+
+    @Test
+    void shouldKeepPreviousVersionWhenRecordWriteIsTorn() throws IOException {
+        int t1 = taskManager.addTask(
+            new Task("_t1name_", "_t1desc_", Duration.ofHours(1), nowDateTime));
+        taskManager.updateTask(new Task("_newname_", "_t1desc_", t1, TaskStatus.DONE,
+            Duration.ofHours(1), nowDateTime));
+        taskManager.close();
+        byte[] content = Files.readAllBytes(file);
+        byte[] newName = "_newname_".getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i + newName.length <= content.length; i++) {
+            if (Arrays.equals(content, i, i + newName.length, newName, 0,
+                newName.length)) {
+                content[i] ^= 0x7F;
+            }
+        }
+        Files.write(file, content);
+        RecordFileTaskManager tm2 = reload();
+        assertEquals("_t1name_", tm2.getTask(t1).getName());
+        assertEquals(TaskStatus.NEW, tm2.getTask(t1).getStatus());
+    }
+
+    @Test
+    void shouldIgnoreIncompleteLastSlot() throws IOException {
+        taskManager.addTask(new Task("_t1name_", "_t1desc_", Duration.ofHours(1), nowDateTime));
+        taskManager.addTask(new Task("_t2name_", "_t2desc_", Duration.ofHours(1),
+            nowDateTime.plusHours(2)));
+        taskManager.close();
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length - 100));
+        RecordFileTaskManager tm2 = reload();
+        assertEquals(1, tm2.getAllTasks().size());
+        assertEquals("_t1name_", tm2.getAllTasks().getFirst().getName());
+        assertEquals(1, tm2.getFreeSlotCount());
+    }
+
+    @Test
+    void shouldThrowExceptionOnForeignFile() throws IOException {
+        taskManager.close();
+        Files.writeString(file, "id,type,name,status,description,duration,start_time,epic\n");
+        assertThrows(ManagerLoadException.class,
+            () -> RecordFileTaskManager.loadFromFile(file.toFile()));
+    }
+}
@@ -0,0 +1,198 @@
+package ru.yandex.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import ru.yandex.model.Task;
+import ru.yandex.model.TaskStatus;
+
+class SessionHistoryManagerTest extends HistoryManagerTest<SessionHistoryManager> {
+
+    private static final int THREADS = 8;
+    private static final int IDS = 200;
+
+    SessionHistoryManagerTest() {
+        super(() -> new SessionHistoryManager(10, Duration.ofMinutes(30)));
+    }
+
+    private static Task task(int id) {
+        return new Task("_t" + id + "name_", "_tdesc_", id, TaskStatus.NEW, Duration.ZERO,
+            LocalDateTime.MIN);
+    }
+
+    private static List<Integer> ids(HistoryManager historyManager) {
+        return historyManager.getHistory().stream().map(Task::getId).toList();
+    }
+
+    @Test
+    void shouldKeepSeparateHistoryPerSession() {
+        try (SessionHistoryManager historyManager = factory.get()) {
+            historyManager.add(task(0));
+            historyManager.enter("alice");
+            historyManager.add(task(1));
+            historyManager.add(task(2));
+            historyManager.enter("bob");
+            historyManager.add(task(2));
+            assertEquals(List.of(2), ids(historyManager));
+            historyManager.enter("alice");
+            assertEquals(List.of(1, 2), ids(historyManager));
+            historyManager.remove(2);
+            assertEquals(List.of(1), ids(historyManager));
+            historyManager.enter("bob");
+            assertEquals(List.of(), ids(historyManager));
+            historyManager.leave();
+            assertEquals(List.of(0), ids(historyManager));
+        }
+    }
+
+    @Test
+    void shouldEvictIdleSessions() {
+        MutableClock clock = new MutableClock();
+        try (SessionHistoryManager historyManager = new SessionHistoryManager(
+            InMemoryHistoryManager::new, Duration.ofMinutes(30), clock)) {
+            historyManager.enter("alice");
+            historyManager.add(task(1));
+            clock.advance(Duration.ofMinutes(20));
+            historyManager.enter("bob");
+            historyManager.add(task(2));
+            historyManager.leave();
+            clock.advance(Duration.ofMinutes(20));
+            assertEquals(1, historyManager.evictIdle());
+            assertEquals(1, historyManager.getSessionCount());
+            historyManager.enter("alice");
+            assertEquals(List.of(), ids(historyManager));
+            historyManager.enter("bob");
+            assertEquals(List.of(2), ids(historyManager));
+        }
+    }
+
+    @Test
+    void shouldEvictPeriodicallyOnlyAfterStart() throws InterruptedException {
+        try (SessionHistoryManager historyManager = new SessionHistoryManager(10,
+            Duration.ofMillis(20))) {
+            historyManager.enter("alice");
+            historyManager.leave();
+            Thread.sleep(100);
+            assertEquals(1, historyManager.getSessionCount());
+            historyManager.start();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (historyManager.getSessionCount() > 0
+                && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, historyManager.getSessionCount());
+        }
+    }
+
+    @Test
+    void shouldRemoveTaskOnlyFromSessionsThatViewedIt() {
+        AtomicInteger removals = new AtomicInteger();
+        try (SessionHistoryManager historyManager = new SessionHistoryManager(
+            () -> new BoundedHistoryManager(3) {
+                @Override
+                public void remove(int id) {
+                    removals.incrementAndGet();
+                    super.remove(id);
+                }
+            }, Duration.ofMinutes(30), Clock.systemUTC())) {
+            for (int session = 0; session < 100; session++) {
+                historyManager.enter("s" + session);
+                historyManager.add(task(session));
+            }
+            // вытесненные ограниченной историей просмотры не мешают удалению
+            historyManager.enter("alice");
+            for (int id = 0; id < 200; id++) {
+                historyManager.add(task(id));
+            }
+            historyManager.remove(198);
+            assertEquals(List.of(197, 199), ids(historyManager));
+            assertEquals(1, removals.get());
+            historyManager.remove(5);
+            assertEquals(2, removals.get());
+            historyManager.enter("s5");
+            assertEquals(List.of(), ids(historyManager));
+        }
+    }
+
+    @Test
+    void shouldNotLoseSessionsFromIndexUnderConcurrentAccess() throws Exception {
+        try (SessionHistoryManager historyManager = new SessionHistoryManager(2,
+            Duration.ofMinutes(30))) {
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    historyManager.enter("s" + thread);
+                    // ёмкость истории 2, поэтому индекс сессий постоянно прореживается
+                    for (int i = 0; i < 20_000; i++) {
+                        historyManager.add(task(i % IDS));
+                        if (i % 101 == thread) {
+                            historyManager.remove((i + thread) % IDS);
+                        }
+                    }
+                    historyManager.leave();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+            for (int id = 0; id < IDS; id++) {
+                historyManager.remove(id);
+            }
+            for (int t = 0; t < THREADS; t++) {
+                historyManager.enter("s" + t);
+                assertEquals(List.of(), ids(historyManager));
+            }
+        }
+    }
+
+    @Test
+    void shouldRejectNonPositiveIdleTimeout() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new SessionHistoryManager(10, Duration.ZERO));
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.EPOCH;
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package ru.yandex.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class TaskJournalTest {
+
+    private static final int THREADS = 8;
+    private static final int RECORDS_PER_THREAD = 20;
+
+    private static Path tempFile() throws IOException {
+        return File.createTempFile("test_journal_file", ".tmp").toPath();
+    }
+
+    private static JournalStats appendConcurrently(TaskJournal journal) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < RECORDS_PER_THREAD; i++) {
+                    journal.append("PUT," + thread + "," + i);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        return journal.getStats();
+    }
+
+    @Test
+    void shouldShareFsyncBetweenConcurrentAppendsInGroupCommitMode() throws Exception {
+        Path file = tempFile();
+        try (TaskJournal journal = new TaskJournal(file, DurabilityPolicy.GROUP_COMMIT, 5)) {
+            JournalStats stats = appendConcurrently(journal);
+            // каждый вызов append вернулся только после сброса своей записи на диск, но потоки
+            // ждали вместе, поэтому сбросов заметно меньше, чем записей
+            assertEquals(THREADS * RECORDS_PER_THREAD, stats.getRecords());
+            assertTrue(stats.getBatches() <= THREADS * RECORDS_PER_THREAD / 2,
+                "сбросов: " + stats.getBatches());
+            assertEquals(THREADS * RECORDS_PER_THREAD, Files.readAllLines(file).size());
+        }
+    }
+
+    @Test
+    void shouldFsyncEveryAppendInSyncMode() throws Exception {
+        Path file = tempFile();
+        try (TaskJournal journal = new TaskJournal(file)) {
+            JournalStats stats = appendConcurrently(journal);
+            assertEquals(THREADS * RECORDS_PER_THREAD, stats.getBatches());
+        }
+    }
+
+    @Test
+    void shouldKeepRecordsAcrossRotation() throws IOException {
+        Path file = tempFile();
+        Path segment = file.resolveSibling(file.getFileName() + ".segment");
+        try (TaskJournal journal = new TaskJournal(file)) {
+            journal.append("PUT,1");
+            journal.rotate(segment);
+            journal.append("PUT,2");
+        }
+        assertEquals(List.of("PUT,1"), TaskJournal.readRecords(segment));
+        assertEquals(List.of("PUT,2"), TaskJournal.readRecords(file));
+        Files.delete(segment);
+    }
+}
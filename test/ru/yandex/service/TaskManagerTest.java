@@ -9,16 +9,21 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Supplier;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import ru.yandex.exceptions.BulkInsertException;
 import ru.yandex.exceptions.TaskNotFoundException;
 import ru.yandex.exceptions.TaskOverlapException;
 import ru.yandex.model.Epic;
 import ru.yandex.model.Subtask;
 import ru.yandex.model.Task;
 import ru.yandex.model.TaskStatus;
+import ru.yandex.model.TaskType;
+import ru.yandex.model.TimeSlot;
+import ru.yandex.util.Page;
 
 abstract class TaskManagerTest<T extends TaskManager> {
 
@@ -377,4 +382,262 @@ abstract class TaskManagerTest<T extends TaskManager> {
         assertDoesNotThrow(() -> taskManager.updateTask(goodUpdate));
         assertThrows(TaskOverlapException.class, () -> taskManager.updateTask(badUpdate));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldBumpVersionsOfAffectedCollectionsOnly() {
+        long tasksVersion = taskManager.getVersion(TaskType.TASK);
+        long epicsVersion = taskManager.getVersion(TaskType.EPIC);
+        long subtasksVersion = taskManager.getVersion(TaskType.SUBTASK);
+        taskManager.addTask(new Task("_t1name_", "_t1desc_", Duration.ofHours(1), nowDateTime));
+        assertTrue(taskManager.getVersion(TaskType.TASK) > tasksVersion);
+        assertEquals(epicsVersion, taskManager.getVersion(TaskType.EPIC));
+        assertEquals(subtasksVersion, taskManager.getVersion(TaskType.SUBTASK));
+        tasksVersion = taskManager.getVersion(TaskType.TASK);
+        int e1 = taskManager.addEpic(new Epic("_e1name_", "_e1desc_"));
+        assertTrue(taskManager.getVersion(TaskType.EPIC) > epicsVersion);
+        epicsVersion = taskManager.getVersion(TaskType.EPIC);
+        taskManager.addSubtask(new Subtask("_s1name_", "_s1desc_", e1, Duration.ofHours(1),
+            nowDateTime.plusHours(2)));
+        assertTrue(taskManager.getVersion(TaskType.SUBTASK) > subtasksVersion);
+        assertTrue(taskManager.getVersion(TaskType.EPIC) > epicsVersion);
+        assertEquals(tasksVersion, taskManager.getVersion(TaskType.TASK));
+        subtasksVersion = taskManager.getVersion(TaskType.SUBTASK);
+        assertThrows(TaskOverlapException.class, () -> taskManager.addTask(
+            new Task("_t2name_", "_t2desc_", Duration.ofHours(1), nowDateTime)));
+        taskManager.getAllTasks();
+        assertEquals(tasksVersion, taskManager.getVersion(TaskType.TASK));
+        taskManager.removeEpic(e1);
+        assertTrue(taskManager.getVersion(TaskType.SUBTASK) > subtasksVersion);
+    }
+
+    @Test
+    void shouldReturnAllTasksPageByPage() {
+        for (int i = 0; i < 5; i++) {
+            taskManager.addTask(new Task("_t" + i + "name_", "_tdesc_", Duration.ofHours(1),
+                nowDateTime.plusHours(2L * (5 - i))));
+        }
+        List<Task> byId = new ArrayList<>();
+        List<Task> byStartTime = new ArrayList<>();
+        String idCursor = null;
+        String timeCursor = null;
+        int pages = 0;
+        do {
+            Page<Task> idPage = taskManager.getTasksPage(2, idCursor);
+            Page<Task> timePage = taskManager.getPrioritizedTasksPage(2, timeCursor);
+            assertTrue(idPage.getItems().size() <= 2);
+            byId.addAll(idPage.getItems());
+            byStartTime.addAll(timePage.getItems());
+            idCursor = idPage.getNextCursor();
+            timeCursor = timePage.getNextCursor();
+            pages++;
+        } while (idCursor != null);
+        assertEquals(3, pages);
+        assertEquals(null, timeCursor);
+        assertEquals(taskManager.getAllTasks(), byId);
+        assertEquals(taskManager.getPrioritizedTasks(), byStartTime);
+    }
+
+    @Test
+    void shouldPageEpicsAndSubtasksById() {
+        int e1 = taskManager.addEpic(new Epic("_e1name_", "_e1desc_"));
+        int e2 = taskManager.addEpic(new Epic("_e2name_", "_e2desc_"));
+        int s1 = taskManager.addSubtask(new Subtask("_s1name_", "_s1desc_", e1,
+            Duration.ofHours(1), nowDateTime));
+        Page<Epic> first = taskManager.getEpicsPage(1, null);
+        assertEquals(e1, first.getItems().getFirst().getId());
+        Page<Epic> second = taskManager.getEpicsPage(1, first.getNextCursor());
+        assertEquals(e2, second.getItems().getFirst().getId());
+        assertEquals(null, second.getNextCursor());
+        Page<Subtask> subtasks = taskManager.getSubtasksPage(10, null);
+        assertEquals(s1, subtasks.getItems().getFirst().getId());
+        assertEquals(null, subtasks.getNextCursor());
+    }
+
+    @Test
+    void shouldRejectInvalidPageRequests() {
+        assertThrows(IllegalArgumentException.class, () -> taskManager.getTasksPage(0, null));
+        assertThrows(IllegalArgumentException.class,
+            () -> taskManager.getTasksPage(1, "not a cursor"));
+        assertThrows(IllegalArgumentException.class,
+            () -> taskManager.getPrioritizedTasksPage(1, Page.encodeCursor("42")));
+    }
+
+    @Test
+    void shouldKeepTasksStartingAtTheSameMoment() {
+        int t1 = taskManager.addTask(new Task("_t1name_", "_t1desc_", Duration.ZERO, nowDateTime));
+        int t2 = taskManager.addTask(new Task("_t2name_", "_t2desc_", Duration.ZERO, nowDateTime));
+        List<Task> prioritized = taskManager.getPrioritizedTasks();
+        assertEquals(2, prioritized.size());
+        assertEquals(t1, prioritized.get(0).getId());
+        assertEquals(t2, prioritized.get(1).getId());
+        taskManager.removeTask(t1);
+        assertEquals(List.of(taskManager.getTask(t2)), taskManager.getPrioritizedTasks());
+    }
+
+    @Test
+    void shouldReturnTasksStartingWithinTimeWindow() {
+        int e1 = taskManager.addEpic(new Epic("_e1name_", "_e1desc_"));
+        int t1 = taskManager.addTask(new Task("_t1name_", "_t1desc_", Duration.ofHours(1),
+            nowDateTime));
+        int s1 = taskManager.addSubtask(new Subtask("_s1name_", "_s1desc_", e1,
+            Duration.ofHours(1), nowDateTime.plusHours(2)));
+        int t2 = taskManager.addTask(new Task("_t2name_", "_t2desc_", Duration.ofHours(1),
+            nowDateTime.plusHours(4)));
+        List<Integer> window = taskManager.getPrioritizedTasks(nowDateTime,
+            nowDateTime.plusHours(4)).stream().map(Task::getId).toList();
+        assertEquals(List.of(t1, s1), window);
+        assertEquals(List.of(s1, t2), taskManager.getPrioritizedTasks(nowDateTime.plusHours(1),
+            null).stream().map(Task::getId).toList());
+        assertEquals(List.of(t1), taskManager.getPrioritizedTasks(null,
+            nowDateTime.plusHours(2)).stream().map(Task::getId).toList());
+        assertTrue(taskManager.getPrioritizedTasks(nowDateTime.plusHours(5), null).isEmpty());
+        assertThrows(IllegalArgumentException.class,
+            () -> taskManager.getPrioritizedTasks(nowDateTime.plusHours(1), nowDateTime));
+    }
+
+    @Test
+    void shouldSelectTasksByStatusAndStartTime() {
+        int e1 = taskManager.addEpic(new Epic("_e1name_", "_e1desc_"));
+        int t1 = taskManager.addTask(new Task("_t1name_", "_t1desc_", 0, TaskStatus.DONE,
+            Duration.ofHours(1), nowDateTime.plusHours(4)));
+        int s1 = taskManager.addSubtask(new Subtask("_s1name_", "_s1desc_", e1,
+            Duration.ofHours(1), nowDateTime.plusHours(2)));
+        int t2 = taskManager.addTask(new Task("_t2name_", "_t2desc_", Duration.ofHours(1),
+            nowDateTime));
+        taskManager.updateSubtask(new Subtask("_s1name_", "_s1desc_", s1, TaskStatus.DONE, e1,
+            Duration.ofHours(1), nowDateTime.plusHours(2)));
+        assertEquals(List.of(t1, s1), taskManager.getTasksByStatus(TaskStatus.DONE).stream()
+            .map(Task::getId).toList());
+        assertEquals(List.of(t2), taskManager.getTasksByStatus(TaskStatus.NEW).stream()
+            .map(Task::getId).toList());
+        assertTrue(taskManager.getTasksByStatus(TaskStatus.IN_PROGRESS).isEmpty());
+        assertEquals(List.of(t2, s1), taskManager.getTasksStartingBetween(nowDateTime,
+            nowDateTime.plusHours(4)).stream().map(Task::getId).toList());
+        assertEquals(List.of(s1, t1), taskManager.getTasksStartingBetween(nowDateTime.plusHours(1),
+            null).stream().map(Task::getId).toList());
+        assertEquals(List.of(t2, s1, t1), taskManager.getTasksStartingBetween(null, null).stream()
+            .map(Task::getId).toList());
+        assertThrows(IllegalArgumentException.class,
+            () -> taskManager.getTasksStartingBetween(nowDateTime.plusHours(1), nowDateTime));
+    }
+
+    @Test
+    void shouldFindFreeSlotsAroundTasksAndSubtasks() {
+        int e1 = taskManager.addEpic(new Epic("_e1name_", "_e1desc_"));
+        taskManager.addTask(new Task("_t1name_", "_t1desc_", Duration.ofHours(2), nowDateTime));
+        taskManager.addSubtask(new Subtask("_s1name_", "_s1desc_", e1, Duration.ofHours(1),
+            nowDateTime.plusHours(3)));
+        List<TimeSlot> slots = taskManager.findFreeSlots(Duration.ofHours(1), nowDateTime,
+            nowDateTime.plusHours(6), 5);
+        assertEquals(List.of(new TimeSlot(nowDateTime.plusHours(2), nowDateTime.plusHours(3)),
+            new TimeSlot(nowDateTime.plusHours(4), nowDateTime.plusHours(6))), slots);
+        TimeSlot earliest = taskManager.findFreeSlots(Duration.ofHours(2), nowDateTime,
+            nowDateTime.plusHours(6), 1).getFirst();
+        assertDoesNotThrow(() -> taskManager.addTask(new Task("_t2name_", "_t2desc_",
+            Duration.ofHours(2), earliest.getStart())));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.findFreeSlots(
+            Duration.ZERO, nowDateTime, nowDateTime.plusHours(1), 1));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.findFreeSlots(
+            Duration.ofHours(1), nowDateTime, nowDateTime, 1));
+    }
+
+    @Test
+    void shouldAddBatchOfTasksAndSubtasks() {
+        int e1 = taskManager.addEpic(new Epic("_e1name_", "_e1desc_"));
+        List<Integer> taskIds = taskManager.addTasks(List.of(
+            new Task("_t1name_", "_t1desc_", Duration.ofHours(1), nowDateTime.plusHours(4)),
+            new Task("_t2name_", "_t2desc_", Duration.ofHours(1), nowDateTime)));
+        assertEquals(List.of(e1 + 1, e1 + 2), taskIds);
+        assertEquals("_t2name_", taskManager.getTask(taskIds.get(1)).getName());
+        List<Integer> subtaskIds = taskManager.addSubtasks(List.of(
+            new Subtask("_s1name_", "_s1desc_", e1, Duration.ofHours(1), nowDateTime.plusHours(2)),
+            new Subtask("_s2name_", "_s2desc_", e1, Duration.ofHours(1),
+                nowDateTime.plusHours(1))));
+        assertEquals(2, taskManager.getEpic(e1).getSubtasks().size());
+        assertEquals(List.of(taskIds.get(1), subtaskIds.get(1), subtaskIds.get(0), taskIds.get(0)),
+            taskManager.getPrioritizedTasks().stream().map(Task::getId).toList());
+        assertTrue(taskManager.addTasks(List.of()).isEmpty());
+    }
+
+    @Test
+    void shouldRejectWholeBatchOnConflictWithinBatch() {
+        BulkInsertException e = assertThrows(BulkInsertException.class,
+            () -> taskManager.addTasks(List.of(
+                new Task("_t1name_", "_t1desc_", Duration.ofHours(1), nowDateTime.plusHours(6)),
+                new Task("_t2name_", "_t2desc_", Duration.ofHours(3), nowDateTime),
+                new Task("_t3name_", "_t3desc_", Duration.ofHours(1), nowDateTime.plusHours(4)),
+                new Task("_t4name_", "_t4desc_", Duration.ofHours(1),
+                    nowDateTime.plusHours(2)))));
+        assertEquals(1, e.getIndex());
+        assertTrue(taskManager.getAllTasks().isEmpty());
+        assertTrue(taskManager.getPrioritizedTasks().isEmpty());
+        assertEquals(0, taskManager.addTask(new Task("_t5name_", "_t5desc_", Duration.ofHours(1),
+            nowDateTime)));
+    }
+
+    @Test
+    void shouldRejectWholeBatchOnConflictWithSchedule() {
+        int e1 = taskManager.addEpic(new Epic("_e1name_", "_e1desc_"));
+        taskManager.addTask(new Task("_t1name_", "_t1desc_", Duration.ofHours(2), nowDateTime));
+        BulkInsertException e = assertThrows(BulkInsertException.class,
+            () -> taskManager.addSubtasks(List.of(
+                new Subtask("_s1name_", "_s1desc_", e1, Duration.ofHours(1),
+                    nowDateTime.plusHours(3)),
+                new Subtask("_s2name_", "_s2desc_", e1, Duration.ofHours(1),
+                    nowDateTime.plusHours(1)))));
+        assertEquals(1, e.getIndex());
+        assertTrue(taskManager.getAllSubtasks().isEmpty());
+        assertThrows(TaskNotFoundException.class, () -> taskManager.addSubtasks(List.of(
+            new Subtask("_s3name_", "_s3desc_", e1 + 100, Duration.ofHours(1),
+                nowDateTime.plusHours(5)))));
+    }
+
+    @Test
+    void shouldApplyCommittedTransaction() {
+        int t1 = taskManager.addTask(new Task("_t1name_", "_t1desc_", Duration.ofHours(1),
+            nowDateTime));
+        taskManager.beginTransaction();
+        assertTrue(taskManager.isInTransaction());
+        int e1 = taskManager.addEpic(new Epic("_e1name_", "_e1desc_"));
+        int s1 = taskManager.addSubtask(new Subtask("_s1name_", "_s1desc_", e1,
+            Duration.ofHours(1), nowDateTime.plusHours(2)));
+        // проверка пересечений учитывает изменения, сделанные в той же транзакции
+        assertThrows(TaskOverlapException.class, () -> taskManager.addTask(
+            new Task("_t2name_", "_t2desc_", Duration.ofHours(1), nowDateTime.plusHours(2))));
+        taskManager.removeTask(t1);
+        taskManager.commit();
+        assertFalse(taskManager.isInTransaction());
+        assertEquals(s1, taskManager.getEpic(e1).getSubtasks().keys().findFirst().orElseThrow());
+        assertTrue(taskManager.getAllTasks().isEmpty());
+        assertThrows(IllegalStateException.class, taskManager::commit);
+    }
+
+    @Test
+    void shouldRestoreStateOnRollback() {
+        int e1 = taskManager.addEpic(new Epic("_e1name_", "_e1desc_"));
+        int t1 = taskManager.addTask(new Task("_t1name_", "_t1desc_", Duration.ofHours(1),
+            nowDateTime));
+        int s1 = taskManager.addSubtask(new Subtask("_s1name_", "_s1desc_", e1,
+            Duration.ofHours(1), nowDateTime.plusHours(2)));
+        List<Task> prioritized = taskManager.getPrioritizedTasks();
+        assertThrows(TaskOverlapException.class, () -> taskManager.inTransaction(() -> {
+            taskManager.updateEpic(new Epic("_anotherename_", "_e1desc_", e1));
+            taskManager.updateSubtask(new Subtask("_s1name_", "_s1desc_", s1, TaskStatus.DONE,
+                e1, Duration.ofHours(1), nowDateTime.plusHours(4)));
+            taskManager.removeTask(t1);
+            taskManager.addTask(new Task("_t2name_", "_t2desc_", Duration.ofHours(1),
+                nowDateTime));
+            taskManager.clearEpics();
+            taskManager.addTask(new Task("_t3name_", "_t3desc_", Duration.ofHours(1),
+                nowDateTime));
+        }));
+        assertFalse(taskManager.isInTransaction());
+        assertEquals("_e1name_", taskManager.getEpic(e1).getName());
+        assertEquals(TaskStatus.NEW, taskManager.getEpic(e1).getStatus());
+        assertEquals(nowDateTime.plusHours(2), taskManager.getSubtask(s1).getStartTime());
+        assertEquals(prioritized, taskManager.getPrioritizedTasks());
+        assertEquals(1, taskManager.getAllTasks().size());
+        assertEquals(s1 + 1, taskManager.addTask(new Task("_t4name_", "_t4desc_",
+            Duration.ofHours(1), nowDateTime.plusHours(4))));
+    }
+}
@@ -0,0 +1,143 @@
+package ru.yandex.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+class IntMapTest {
+
+    private static <V> List<V> toList(Iterator<V> iterator) {
+        List<V> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+        return list;
+    }
+
+    @Test
+    void shouldMatchTreeMapOnRandomOperations() {
+        Random random = new Random(42);
+        IntMap<String> map = new IntMap<>();
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            // отрицательные и совпадающие по младшим битам ключи проверяют хеш-индекс
+            int key = (random.nextInt(400) - 200) * 1024;
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(expected.remove(key), map.remove(key));
+                case 1 -> assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+                default -> assertEquals(expected.get(key), map.get(key));
+            }
+            assertEquals(expected.size(), map.size());
+            if (i % 1000 == 0) {
+                assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(map.values()));
+                assertEquals(expected.keySet().stream().mapToInt(Integer::intValue).boxed()
+                    .toList(), map.keys().boxed().toList());
+                assertEquals(new ArrayList<>(expected.tailMap(key, false).values()),
+                    toList(map.valuesAfter(key)));
+            }
+        }
+    }
+
+    @Test
+    void shouldKeepKeyOrderForOutOfOrderInserts() {
+        IntMap<Integer> map = new IntMap<>();
+        for (int key : new int[]{5, 1, 9, 3, 7, 0, 8}) {
+            map.put(key, key);
+        }
+        assertEquals(List.of(0, 1, 3, 5, 7, 8, 9), new ArrayList<>(map.values()));
+        assertEquals(List.of(5, 7, 8, 9), toList(map.valuesAfter(4)));
+        assertEquals(List.of(7, 8, 9), toList(map.valuesAfter(5)));
+        assertEquals(List.of(), toList(map.valuesAfter(9)));
+    }
+
+    @Test
+    void shouldPutAllInAnyOrder() {
+        IntMap<Integer> map = new IntMap<>();
+        map.put(4, 4);
+        map.put(6, -6);
+        map.remove(4);
+        map.putAll(List.of(9, 2, 6, 4, 2), Integer::intValue);
+        assertEquals(List.of(2, 4, 6, 9), map.keys().boxed().toList());
+        assertEquals(List.of(2, 4, 6, 9), new ArrayList<>(map.values()));
+        assertEquals(4, map.size());
+        assertEquals(6, map.get(6));
+        map.putAll(List.of(10, 11), Integer::intValue);
+        assertEquals(List.of(10, 11), toList(map.valuesAfter(9)));
+    }
+
+    @Test
+    void shouldLoadReversedKeysInLinearithmicTime() {
+        IntMap<Integer> map = new IntMap<>();
+        List<Integer> reversed = new ArrayList<>();
+        for (int key = 200_000; key > 0; key--) {
+            reversed.add(key);
+        }
+        assertTimeoutPreemptively(Duration.ofSeconds(5),
+            () -> map.putAll(reversed, Integer::intValue));
+        assertEquals(200_000, map.size());
+        assertEquals(1, map.values().iterator().next());
+        assertEquals(150_000, map.get(150_000));
+    }
+
+    @Test
+    void shouldCompactRemovedEntries() {
+        IntMap<Integer> map = new IntMap<>();
+        for (int key = 0; key < 10_000; key++) {
+            map.put(key, key);
+        }
+        for (int key = 0; key < 10_000; key++) {
+            if (key % 10 != 0) {
+                assertEquals(key, map.remove(key));
+            }
+        }
+        assertEquals(1000, map.size());
+        assertTrue(map.containsKey(9990));
+        assertFalse(map.containsKey(9991));
+        assertNull(map.get(9991));
+        assertEquals(9980, map.values().stream().skip(998).findFirst().orElseThrow());
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertEquals(List.of(), new ArrayList<>(map.values()));
+    }
+
+    @Test
+    void shouldRejectChangesWhenFrozen() {
+        IntMap<String> map = new IntMap<>();
+        map.put(1, "a");
+        IntMap<String> copy = new IntMap<>(map).freeze();
+        assertThrows(UnsupportedOperationException.class, () -> copy.put(2, "b"));
+        assertThrows(UnsupportedOperationException.class, () -> copy.remove(1));
+        assertThrows(UnsupportedOperationException.class, copy::clear);
+        map.put(2, "b");
+        assertEquals(1, copy.size());
+        assertEquals("a", copy.get(1));
+    }
+
+    @Test
+    void shouldFailIterationAfterStructuralChange() {
+        IntMap<String> map = new IntMap<>();
+        map.put(1, "a");
+        map.put(2, "b");
+        Iterator<String> iterator = map.values().iterator();
+        iterator.next();
+        map.remove(2);
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+        assertThrows(ConcurrentModificationException.class,
+            () -> map.forEachKey(key -> map.put(key + 10, "c")));
+    }
+
+    @Test
+    void shouldRejectNullValues() {
+        assertThrows(NullPointerException.class, () -> new IntMap<String>().put(1, null));
+    }
+}
@@ -0,0 +1,163 @@
+package ru.yandex.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.model.Task;
+import ru.yandex.model.TaskStatus;
+import ru.yandex.model.TimeSlot;
+
+class IntervalTreeTest {
+
+    private IntervalTree tree;
+    private LocalDateTime nowDateTime;
+
+    @BeforeEach
+    void setUp() {
+        tree = new IntervalTree();
+        nowDateTime = LocalDateTime.now();
+    }
+
+    private Task task(int id, int startHours, int durationHours) {
+        return new Task("_t" + id + "name_", "_t" + id + "desc_", id, TaskStatus.NEW,
+            Duration.ofHours(durationHours), nowDateTime.plusHours(startHours));
+    }
+
+    @Test
+    void shouldFindOverlappingTasks() {
+        Task task1 = task(1, 0, 4);
+        Task task2 = task(2, 4, 4);
+        Task task3 = task(3, 10, 2);
+        tree.add(task1);
+        tree.add(task2);
+        tree.add(task3);
+        assertEquals(task1, tree.findOverlap(task(4, 3, 2)).orElseThrow());
+        assertArrayEquals(new Task[]{task1, task2}, tree.getOverlaps(task(4, 3, 2)).toArray());
+        assertTrue(tree.findOverlap(task(4, 8, 2)).isEmpty());
+        assertArrayEquals(new Task[]{task2, task3}, tree.getOverlaps(task(4, 5, 6)).toArray());
+    }
+
+    @Test
+    void shouldIgnoreTaskWithSameId() {
+        tree.add(task(1, 0, 4));
+        assertTrue(tree.findOverlap(task(1, 2, 4)).isEmpty());
+    }
+
+    @Test
+    void shouldTreatZeroDurationTaskAsPoint() {
+        tree.add(task(1, 2, 4));
+        assertTrue(tree.findOverlap(task(2, 2, 0)).isPresent());
+        assertTrue(tree.findOverlap(task(2, 6, 0)).isEmpty());
+        tree.add(task(3, 8, 0));
+        assertTrue(tree.findOverlap(task(4, 8, 0)).isEmpty());
+        assertTrue(tree.findOverlap(task(4, 7, 2)).isPresent());
+    }
+
+    @Test
+    void shouldRemoveAndReplaceTasks() {
+        tree.add(task(1, 0, 4));
+        tree.add(task(2, 4, 4));
+        assertTrue(tree.remove(1));
+        assertFalse(tree.remove(1));
+        assertTrue(tree.findOverlap(task(3, 0, 2)).isEmpty());
+        tree.add(task(2, 0, 2));
+        assertEquals(1, tree.size());
+        assertTrue(tree.findOverlap(task(3, 5, 2)).isEmpty());
+        tree.clear();
+        assertTrue(tree.isEmpty());
+    }
+
+    @Test
+    void shouldMatchLinearScanOnRandomSchedules() {
+        Random random = new Random(42);
+        List<Task> added = new ArrayList<>();
+        for (int id = 0; id < 2000; id++) {
+            Task task = task(id, random.nextInt(5000), random.nextInt(10));
+            tree.add(task);
+            added.add(task);
+            if (random.nextInt(4) == 0) {
+                Task removed = added.remove(random.nextInt(added.size()));
+                tree.remove(removed.getId());
+            }
+        }
+        added.sort(Comparator.comparing(Task::getStartTime).thenComparing(Task::getId));
+        assertEquals(added, tree.toList());
+        for (int i = 0; i < 500; i++) {
+            Task probe = task(-1, random.nextInt(5000), random.nextInt(10));
+            List<Task> expected = added.stream().filter(probe::overlaps).toList();
+            assertEquals(expected, tree.getOverlaps(probe));
+            assertEquals(expected.stream().findFirst(), tree.findOverlap(probe));
+        }
+    }
+
+    @Test
+    void shouldFindFreeSlotsBetweenIntervals() {
+        tree.add(task(1, 0, 2));
+        tree.add(task(2, 3, 1));
+        tree.add(task(3, 8, 2));
+        assertEquals(List.of(new TimeSlot(nowDateTime.plusHours(4), nowDateTime.plusHours(8))),
+            tree.findFreeSlots(nowDateTime, nowDateTime.plusHours(12), Duration.ofHours(2), 1));
+        assertEquals(List.of(new TimeSlot(nowDateTime.plusHours(2), nowDateTime.plusHours(3)),
+                new TimeSlot(nowDateTime.plusHours(4), nowDateTime.plusHours(8)),
+                new TimeSlot(nowDateTime.plusHours(10), nowDateTime.plusHours(12))),
+            tree.findFreeSlots(nowDateTime, nowDateTime.plusHours(12), Duration.ofHours(1), 10));
+        assertEquals(List.of(new TimeSlot(nowDateTime.plusHours(5), nowDateTime.plusHours(7))),
+            tree.findFreeSlots(nowDateTime.plusHours(5), nowDateTime.plusHours(7),
+                Duration.ofHours(1), 10));
+        assertTrue(tree.findFreeSlots(nowDateTime, nowDateTime.plusHours(12), Duration.ofHours(5),
+            10).isEmpty());
+    }
+
+    @Test
+    void shouldMatchLinearGapScanOnRandomSchedules() {
+        Random random = new Random(7);
+        List<Task> added = new ArrayList<>();
+        for (int id = 0; id < 3000; id++) {
+            Task task = task(id, random.nextInt(20000), 1 + random.nextInt(8));
+            if (tree.findOverlap(task).isEmpty()) {
+                tree.add(task);
+                added.add(task);
+            }
+        }
+        added.sort(Comparator.comparing(Task::getStartTime).thenComparing(Task::getId));
+        for (int i = 0; i < 300; i++) {
+            LocalDateTime from = nowDateTime.plusHours(random.nextInt(20000));
+            LocalDateTime to = from.plusHours(1 + random.nextInt(5000));
+            Duration duration = Duration.ofHours(1 + random.nextInt(12));
+            int limit = 1 + random.nextInt(5);
+            assertEquals(linearGapScan(added, from, to, duration, limit),
+                tree.findFreeSlots(from, to, duration, limit));
+        }
+    }
+
+    // обход всего расписания для сравнения с поиском по дереву
+    private static List<TimeSlot> linearGapScan(List<Task> sorted, LocalDateTime from,
+        LocalDateTime to, Duration duration, int limit) {
+        List<TimeSlot> result = new ArrayList<>();
+        LocalDateTime busyUntil = from;
+        for (Task task : sorted) {
+            LocalDateTime gapEnd = task.getStartTime().isBefore(to) ? task.getStartTime() : to;
+            if (busyUntil.isBefore(gapEnd)
+                && Duration.between(busyUntil, gapEnd).compareTo(duration) >= 0) {
+                result.add(new TimeSlot(busyUntil, gapEnd));
+            }
+            if (task.getEndTime().isAfter(busyUntil)) {
+                busyUntil = task.getEndTime();
+            }
+        }
+        if (busyUntil.isBefore(to) && Duration.between(busyUntil, to).compareTo(duration) >= 0) {
+            result.add(new TimeSlot(busyUntil, to));
+        }
+        return result.subList(0, Integer.min(limit, result.size()));
+    }
+}
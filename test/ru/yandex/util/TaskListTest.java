@@ -38,4 +38,16 @@ class TaskListTest {
         taskList.remove(task1.getId());
         assertArrayEquals(new Task[]{task2}, taskList.toList().toArray());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldIgnoreRepeatedRemovalOfSameId() {
+        taskList.addLast(task1);
+        taskList.addLast(task2);
+        taskList.remove(task2.getId());
+        Task task3 = new Task("_t3name_", "_t3desc_", 1337, TaskStatus.NEW, Duration.ZERO,
+            LocalDateTime.MIN);
+        taskList.addLast(task3);
+        taskList.remove(task2.getId());
+        assertArrayEquals(new Task[]{task1, task3}, taskList.toList().toArray());
+    }
+}
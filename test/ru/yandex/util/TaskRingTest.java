@@ -0,0 +1,63 @@
+package ru.yandex.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import ru.yandex.model.Task;
+import ru.yandex.model.TaskStatus;
+
+class TaskRingTest {
+
+    private static Task task(int id) {
+        return new Task("_t" + id + "name_", "_tdesc_", id, TaskStatus.NEW, Duration.ZERO,
+            LocalDateTime.MIN);
+    }
+
+    @Test
+    void shouldRejectNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new TaskRing(0));
+    }
+
+    @Test
+    void shouldMatchLinkedHashMapOnRandomOperations() {
+        Random random = new Random(42);
+        int capacity = 64;
+        TaskRing ring = new TaskRing(capacity);
+        LinkedHashMap<Integer, Task> expected = new LinkedHashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            // отрицательные и совпадающие по младшим битам id проверяют хеш-таблицу
+            int id = (random.nextInt(200) - 100) * 1024;
+            if (random.nextInt(3) == 0) {
+                ring.remove(id);
+                expected.remove(id);
+            } else {
+                Task task = task(id);
+                ring.addLast(task);
+                expected.remove(id);
+                if (expected.size() == capacity) {
+                    expected.remove(expected.keySet().iterator().next());
+                }
+                expected.put(id, task);
+            }
+            assertEquals(expected.size(), ring.size());
+        }
+        assertEquals(new ArrayList<>(expected.values()), ring.toList());
+    }
+
+    @Test
+    void shouldReleaseRemovedTasks() {
+        TaskRing ring = new TaskRing(2);
+        for (int id = 0; id < 1000; id++) {
+            ring.addLast(task(id));
+            ring.remove(id - 1);
+        }
+        assertEquals(List.of(task(999)), ring.toList());
+    }
+}
@@ -0,0 +1,87 @@
+package ru.yandex.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import ru.yandex.model.Epic;
+import ru.yandex.model.Subtask;
+import ru.yandex.model.Task;
+import ru.yandex.model.TaskStatus;
+
+class TaskTypeAdapterFactoryTest {
+
+    private final Gson gson = new GsonBuilder()
+        .registerTypeAdapterFactory(new TaskTypeAdapterFactory()).create();
+    private final LocalDateTime nowDateTime = LocalDateTime.now();
+
+    @Test
+    void shouldWriteAndReadTaskAndSubtask() {
+        Task task = new Task("_t1name_", "_t1desc_", 3, TaskStatus.DONE, Duration.ofMinutes(90),
+            nowDateTime);
+        Task readTask = gson.fromJson(gson.toJson(task), Task.class);
+        assertEquals(Task.class, readTask.getClass());
+        assertEquals(task.getCSV(), readTask.getCSV());
+        Subtask subtask = new Subtask("_s1name_", "_s1desc_", 5, TaskStatus.IN_PROGRESS, 4,
+            Duration.ofHours(1), nowDateTime);
+        Subtask readSubtask = gson.fromJson(gson.toJson(subtask), Subtask.class);
+        assertEquals(subtask.getCSV(), readSubtask.getCSV());
+    }
+
+    @Test
+    void shouldWriteEpicWithSubtaskIdsOnly() {
+        Epic epic = new Epic("_e1name_", "_e1desc_", 0);
+        epic.addSubtask(new Subtask("_s1name_", "_s1desc_", 1, TaskStatus.DONE, 0,
+            Duration.ofHours(1), nowDateTime));
+        epic.addSubtask(new Subtask("_s2name_", "_s2desc_", 2, TaskStatus.DONE, 0,
+            Duration.ofHours(1), nowDateTime.plusHours(2)));
+        JsonObject json = JsonParser.parseString(gson.toJson(epic)).getAsJsonObject();
+        assertEquals("DONE", json.get("status").getAsString());
+        assertEquals(nowDateTime.plusHours(3).toString(), json.get("endTime").getAsString());
+        JsonArray subtasks = json.getAsJsonArray("subtasks");
+        assertEquals(List.of(1, 2), subtasks.asList().stream().map(e -> e.getAsInt()).toList());
+        Epic readEpic = gson.fromJson(json, Epic.class);
+        assertEquals("_e1name_", readEpic.getName());
+        assertTrue(readEpic.getSubtasks().isEmpty());
+    }
+
+    @Test
+    void shouldWriteMixedListByRuntimeType() {
+        List<Task> tasks = List.of(new Task("_t1name_", "_t1desc_", Duration.ZERO, nowDateTime),
+            new Subtask("_s1name_", "_s1desc_", 7, Duration.ZERO, nowDateTime));
+        JsonArray json = JsonParser.parseString(gson.toJson(tasks)).getAsJsonArray();
+        assertTrue(json.get(1).getAsJsonObject().has("epicId"));
+        assertFalse(json.get(0).getAsJsonObject().has("epicId"));
+    }
+
+    @Test
+    void shouldSkipUnknownFieldsAndDefaultOptionalOnes() {
+        Task task = gson.fromJson("{\"name\":\"n\",\"description\":\"d\",\"extra\":{\"a\":[1]},"
+            + "\"duration\":\"PT1H\",\"startTime\":\"2024-12-02T18:00\"}", Task.class);
+        assertEquals(-1, task.getId());
+        assertEquals(TaskStatus.NEW, task.getStatus());
+    }
+
+    @Test
+    void shouldRejectMissingOrMalformedFields() {
+        assertThrows(JsonSyntaxException.class, () -> gson.fromJson(
+            "{\"name\":\"n\",\"description\":\"d\",\"duration\":\"PT1H\"}", Task.class));
+        assertThrows(JsonSyntaxException.class, () -> gson.fromJson(
+            "{\"name\":\"n\",\"description\":\"d\",\"duration\":\"PT1H\","
+                + "\"startTime\":\"2024-12-02T18:00\"}", Subtask.class));
+        assertThrows(JsonSyntaxException.class, () -> gson.fromJson(
+            "{\"name\":\"n\",\"description\":\"d\",\"duration\":\"час\","
+                + "\"startTime\":\"2024-12-02T18:00\"}", Task.class));
+    }
+}